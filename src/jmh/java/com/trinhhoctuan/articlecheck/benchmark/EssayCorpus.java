@@ -0,0 +1,82 @@
+package com.trinhhoctuan.articlecheck.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.languagetool.JLanguageTool;
+import org.languagetool.rules.RuleMatch;
+
+import com.trinhhoctuan.articlecheck.config.VietnameseLanguage;
+
+/**
+ * Vietnamese essay corpus for benchmarks, built by repeating the paragraphs
+ * of corpus/vi_essay.txt up to the requested number of pages.
+ */
+public class EssayCorpus {
+  /** Characters on one page of a typical essay (about 500 words). */
+  public static final int CHARS_PER_PAGE = 3000;
+
+  private EssayCorpus() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  /**
+   * Build an essay of about the given number of pages.
+   *
+   * @param pages
+   * @return
+   */
+  public static String pages(int pages) {
+    List<String> paragraphs = paragraphs();
+    StringBuilder essay = new StringBuilder(pages * CHARS_PER_PAGE + CHARS_PER_PAGE);
+    for (int i = 0; essay.length() < pages * CHARS_PER_PAGE; i++) {
+      essay.append(paragraphs.get(i % paragraphs.size())).append('\n');
+    }
+    return essay.toString();
+  }
+
+  /**
+   * Create a LanguageTool instance configured like the application's pool.
+   *
+   * @return
+   */
+  public static JLanguageTool newLanguageTool() {
+    System.setProperty("jdk.xml.totalEntitySizeLimit", "0");
+    return new JLanguageTool(new VietnameseLanguage());
+  }
+
+  /**
+   * Check an essay once to get realistic matches for conversion benchmarks.
+   *
+   * @param essay
+   * @return
+   */
+  public static List<RuleMatch> ruleMatches(String essay) {
+    try {
+      return newLanguageTool().check(essay);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Get the non-blank paragraphs of the corpus.
+   *
+   * @return
+   */
+  public static List<String> paragraphs() {
+    try (InputStream inputStream = EssayCorpus.class.getResourceAsStream("/corpus/vi_essay.txt")) {
+      if (inputStream == null) {
+        throw new IllegalStateException("Corpus resource not found");
+      }
+      return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8).lines()
+          .filter(line -> !line.isBlank())
+          .toList();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,181 @@
+package com.trinhhoctuan.articlecheck.benchmark;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import com.trinhhoctuan.articlecheck.utils.TextSpan;
+
+/**
+ * Synthetic corpus for plagiarism benchmarks. Reference essays are random
+ * sentences over the vocabulary of corpus/vi_essay.txt, so they share words
+ * but not passages. Checked essays are original sentences with a block of
+ * sentences of one reference essay pasted in, transformed by a variant, and
+ * the position of the block is recorded as the ground truth.
+ */
+public class PlagiarismCorpus {
+  private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+  private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+  private static final int SENTENCES_PER_ESSAY = 30;
+  private static final int COPIED_SENTENCES = 6;
+  private static final List<String> FILLERS = List.of("thì", "rất", "cũng", "đã", "vẫn", "thật");
+
+  private final List<String> vocabulary;
+  private final List<List<String>> references = new ArrayList<>();
+  private final Random random;
+
+  /**
+   * How the copied block is transformed.
+   */
+  public enum Variant {
+    /** The sentences as they are. */
+    VERBATIM,
+    /** The sentences in shuffled order. */
+    REORDERED,
+    /** Every sentence with a few words replaced, swapped or added. */
+    PARAPHRASED,
+    /** The sentences without Vietnamese diacritics. */
+    DIACRITICS_STRIPPED,
+    /** Nothing copied, for false positives. */
+    ORIGINAL
+  }
+
+  /**
+   * An essay to check with its ground truth.
+   *
+   * @param sourceName The name of the copied reference essay, or null.
+   * @param copied     The span of the copied block in the text, or null.
+   */
+  public record Sample(String text, Variant variant, String sourceName, TextSpan copied) {
+  }
+
+  /**
+   * Generate the reference essays.
+   *
+   * @param documents The number of reference essays.
+   * @param seed
+   */
+  public PlagiarismCorpus(int documents, long seed) {
+    Set<String> words = new LinkedHashSet<>();
+    for (String paragraph : EssayCorpus.paragraphs()) {
+      WORD.matcher(paragraph.toLowerCase(Locale.ROOT)).results().forEach(match -> words.add(match.group()));
+    }
+    this.vocabulary = List.copyOf(words);
+    this.random = new Random(seed);
+    for (int i = 0; i < documents; i++) {
+      List<String> sentences = new ArrayList<>(SENTENCES_PER_ESSAY);
+      for (int j = 0; j < SENTENCES_PER_ESSAY; j++) {
+        sentences.add(sentence());
+      }
+      references.add(sentences);
+    }
+  }
+
+  /**
+   * Get the name a reference essay is added under.
+   *
+   * @param document
+   * @return
+   */
+  public static String sourceName(int document) {
+    return "Essay #" + (document + 1);
+  }
+
+  public int size() {
+    return references.size();
+  }
+
+  /**
+   * Get the text of a reference essay.
+   *
+   * @param document
+   * @return
+   */
+  public String reference(int document) {
+    return String.join(" ", references.get(document));
+  }
+
+  /**
+   * Generate an essay that copies from a random reference essay.
+   *
+   * @param variant
+   * @return
+   */
+  public Sample sample(Variant variant) {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < SENTENCES_PER_ESSAY / 2; i++) {
+      text.append(sentence()).append(' ');
+    }
+    if (variant == Variant.ORIGINAL) {
+      for (int i = 0; i < COPIED_SENTENCES; i++) {
+        text.append(sentence()).append(' ');
+      }
+      return new Sample(text.toString().trim(), variant, null, null);
+    }
+
+    int document = random.nextInt(references.size());
+    int first = random.nextInt(SENTENCES_PER_ESSAY - COPIED_SENTENCES + 1);
+    List<String> block = new ArrayList<>(references.get(document).subList(first, first + COPIED_SENTENCES));
+    switch (variant) {
+      case REORDERED -> Collections.shuffle(block, random);
+      case PARAPHRASED -> block.replaceAll(this::paraphrase);
+      case DIACRITICS_STRIPPED -> block.replaceAll(PlagiarismCorpus::stripDiacritics);
+      default -> {
+      }
+    }
+    int start = text.length();
+    text.append(String.join(" ", block));
+    TextSpan copied = new TextSpan(start, text.length());
+    for (int i = 0; i < SENTENCES_PER_ESSAY / 2; i++) {
+      text.append(' ').append(sentence());
+    }
+    return new Sample(text.toString(), variant, sourceName(document), copied);
+  }
+
+  /**
+   * Replace about one word in eight, swap two neighbouring words and add a
+   * filler word, keeping the sentence recognizable.
+   */
+  private String paraphrase(String sentence) {
+    String body = sentence.substring(0, sentence.length() - 1);
+    List<String> words = new ArrayList<>(List.of(body.split(" ")));
+    for (int i = 1; i < words.size(); i++) {
+      if (random.nextInt(8) == 0) {
+        words.set(i, word());
+      }
+    }
+    int swap = 1 + random.nextInt(words.size() - 2);
+    Collections.swap(words, swap, swap + 1);
+    words.add(1 + random.nextInt(words.size() - 1), FILLERS.get(random.nextInt(FILLERS.size())));
+    return String.join(" ", words) + ".";
+  }
+
+  private static String stripDiacritics(String text) {
+    String stripped = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+    return stripped.replace('đ', 'd').replace('Đ', 'D');
+  }
+
+  private String sentence() {
+    int length = 12 + random.nextInt(14);
+    StringBuilder sentence = new StringBuilder();
+    for (int i = 0; i < length; i++) {
+      String word = word();
+      if (i == 0) {
+        sentence.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+      } else {
+        sentence.append(' ').append(word);
+      }
+    }
+    return sentence.append('.').toString();
+  }
+
+  private String word() {
+    return vocabulary.get(random.nextInt(vocabulary.size()));
+  }
+}
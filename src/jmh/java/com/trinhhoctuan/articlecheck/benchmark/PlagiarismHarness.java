@@ -0,0 +1,116 @@
+package com.trinhhoctuan.articlecheck.benchmark;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import com.trinhhoctuan.articlecheck.config.ReferenceCorpus;
+import com.trinhhoctuan.articlecheck.dtos.PlagiarismCheckDto;
+import com.trinhhoctuan.articlecheck.enums.PlagiarismMode;
+import com.trinhhoctuan.articlecheck.mappers.PlagiarismCheckMapper;
+import com.trinhhoctuan.articlecheck.models.Essay;
+import com.trinhhoctuan.articlecheck.repositories.EssayRepository;
+import com.trinhhoctuan.articlecheck.repositories.PlagiarismCheckRepository;
+import com.trinhhoctuan.articlecheck.services.impl.PlagiarismCheckServiceImpl;
+import com.trinhhoctuan.articlecheck.utils.LocalIndexShard;
+import com.trinhhoctuan.articlecheck.utils.ShardedFingerprintIndex;
+
+/**
+ * PlagiarismCheckServiceImpl with the application's default settings over a
+ * reference corpus in a temporary directory. Repositories are stubs that
+ * hand back what is saved, so only the plagiarism engine is measured.
+ */
+public class PlagiarismHarness implements Closeable {
+  private final Path directory;
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+  private final ForkJoinPool scoringPool = new ForkJoinPool();
+  private final ReferenceCorpus referenceCorpus;
+  private final PlagiarismCheckServiceImpl service;
+
+  /**
+   * Build the service and add the reference essays of a corpus.
+   *
+   * @param corpus
+   * @param mode
+   */
+  public PlagiarismHarness(PlagiarismCorpus corpus, PlagiarismMode mode) {
+    try {
+      directory = Files.createTempDirectory("plagiarism-benchmark");
+      ShardedFingerprintIndex fingerprintShards = new ShardedFingerprintIndex(
+          List.of(new LocalIndexShard(null, 25, 20)), executor);
+      referenceCorpus = new ReferenceCorpus(directory.resolve("reference-corpus.bin").toString(), 32, 4, 5,
+          200000, 25, 20, 3, 20, 3, 1000, fingerprintShards, executor);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    service = new PlagiarismCheckServiceImpl(plagiarismCheckRepository(), new PlagiarismCheckMapper(),
+        stub(EssayRepository.class), referenceCorpus, executor, executor, scoringPool, true, 5, mode,
+        3_600_000, 25);
+    for (int i = 0; i < corpus.size(); i++) {
+      service.addReferenceText(PlagiarismCorpus.sourceName(i), null, corpus.reference(i));
+    }
+  }
+
+  /**
+   * Check a text as an unsaved essay.
+   *
+   * @param text
+   * @return
+   */
+  public List<PlagiarismCheckDto> check(String text) {
+    Essay essay = Essay.builder().title("Benchmark").originalContent(text).build();
+    return service.checkPlagiarism(essay, text);
+  }
+
+  @Override
+  public void close() throws IOException {
+    referenceCorpus.close();
+    executor.shutdown();
+    scoringPool.shutdown();
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  /**
+   * Repository that returns saved entities unchanged and stores nothing.
+   */
+  private static PlagiarismCheckRepository plagiarismCheckRepository() {
+    return (PlagiarismCheckRepository) Proxy.newProxyInstance(PlagiarismHarness.class.getClassLoader(),
+        new Class<?>[] { PlagiarismCheckRepository.class }, (proxy, method, args) -> switch (method.getName()) {
+          case "saveAll" -> {
+            List<Object> saved = new ArrayList<>();
+            ((Iterable<?>) args[0]).forEach(saved::add);
+            yield saved;
+          }
+          case "findByEssayId" -> List.of();
+          case "toString" -> "PlagiarismCheckRepository stub";
+          case "hashCode" -> System.identityHashCode(proxy);
+          case "equals" -> proxy == args[0];
+          default -> throw new UnsupportedOperationException(method.getName());
+        });
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T stub(Class<T> repository) {
+    return (T) Proxy.newProxyInstance(PlagiarismHarness.class.getClassLoader(), new Class<?>[] { repository },
+        (proxy, method, args) -> switch (method.getName()) {
+          case "toString" -> repository.getSimpleName() + " stub";
+          case "hashCode" -> System.identityHashCode(proxy);
+          case "equals" -> proxy == args[0];
+          default -> throw new UnsupportedOperationException(method.getName());
+        });
+  }
+}
@@ -0,0 +1,122 @@
+package com.trinhhoctuan.articlecheck.benchmark;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import com.trinhhoctuan.articlecheck.dtos.PlagiarismCheckDto;
+import com.trinhhoctuan.articlecheck.enums.PlagiarismMode;
+import com.trinhhoctuan.articlecheck.utils.TextSpan;
+
+/**
+ * Detection quality and latency of PlagiarismCheckService.checkPlagiarism
+ * per corpus size and copy variant, run with: gradle plagiarismQuality
+ * (-PcorpusSizes=100,1000 -Psamples=50 -Pmode=BOTH).
+ *
+ * A copied essay is recalled when a check names its source and overlaps the
+ * copied block; a check is a true positive when it does both. Original
+ * essays only contribute false positives. Coverage is the share of copied
+ * characters under true positive checks.
+ */
+public class PlagiarismQualityReport {
+  private static final long SEED = 42;
+
+  private PlagiarismQualityReport() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  public static void main(String[] args) throws IOException {
+    int[] corpusSizes = Arrays.stream(System.getProperty("corpusSizes", "100,1000,5000").split(","))
+        .mapToInt(size -> Integer.parseInt(size.trim()))
+        .toArray();
+    int samples = Integer.getInteger("samples", 50);
+    PlagiarismMode mode = PlagiarismMode.valueOf(System.getProperty("mode", PlagiarismMode.BOTH.name()));
+
+    System.out.printf("%-8s %-20s %7s %9s %9s %9s %9s %9s %9s%n", "corpus", "variant", "recall", "precision",
+        "coverage", "essays/s", "p50 ms", "p95 ms", "p99 ms");
+    for (int corpusSize : corpusSizes) {
+      PlagiarismCorpus corpus = new PlagiarismCorpus(corpusSize, SEED);
+      try (PlagiarismHarness harness = new PlagiarismHarness(corpus, mode)) {
+        // Warm up the JIT and the profile cache before measuring
+        for (int i = 0; i < samples; i++) {
+          harness.check(corpus.sample(PlagiarismCorpus.Variant.VERBATIM).text());
+        }
+        for (PlagiarismCorpus.Variant variant : PlagiarismCorpus.Variant.values()) {
+          report(corpusSize, variant, harness, corpus, samples);
+        }
+      }
+    }
+  }
+
+  private static void report(int corpusSize, PlagiarismCorpus.Variant variant, PlagiarismHarness harness,
+      PlagiarismCorpus corpus, int samples) {
+    long[] latencies = new long[samples];
+    int recalled = 0;
+    int truePositives = 0;
+    int checks = 0;
+    long copiedChars = 0;
+    long coveredChars = 0;
+    long totalNanos = 0;
+    for (int i = 0; i < samples; i++) {
+      PlagiarismCorpus.Sample sample = corpus.sample(variant);
+      long start = System.nanoTime();
+      List<PlagiarismCheckDto> results = harness.check(sample.text());
+      latencies[i] = System.nanoTime() - start;
+      totalNanos += latencies[i];
+
+      checks += results.size();
+      if (sample.copied() == null) {
+        continue;
+      }
+      List<PlagiarismCheckDto> found = results.stream()
+          .filter(check -> sample.sourceName().equals(check.getSourceName()) && overlaps(check, sample.copied()))
+          .toList();
+      truePositives += found.size();
+      recalled += found.isEmpty() ? 0 : 1;
+      copiedChars += sample.copied().length();
+      coveredChars += covered(found, sample.copied());
+    }
+
+    Arrays.sort(latencies);
+    boolean copies = variant != PlagiarismCorpus.Variant.ORIGINAL;
+    System.out.printf(Locale.ROOT, "%-8d %-20s %7s %9s %9s %9.1f %9.2f %9.2f %9.2f%n", corpusSize, variant,
+        copies ? percent((double) recalled / samples) : "-",
+        checks == 0 ? "-" : percent((double) truePositives / checks),
+        copies ? percent((double) coveredChars / copiedChars) : "-",
+        samples / (totalNanos / 1e9), percentile(latencies, 0.50), percentile(latencies, 0.95),
+        percentile(latencies, 0.99));
+  }
+
+  private static boolean overlaps(PlagiarismCheckDto check, TextSpan span) {
+    return check.getStartPosition() < span.end() && check.getEndPosition() > span.start();
+  }
+
+  /**
+   * Count the characters of a span under at least one check.
+   */
+  private static long covered(List<PlagiarismCheckDto> checks, TextSpan span) {
+    boolean[] covered = new boolean[span.length()];
+    for (PlagiarismCheckDto check : checks) {
+      int from = Math.max(check.getStartPosition(), span.start());
+      int to = Math.min(check.getEndPosition(), span.end());
+      for (int i = from; i < to; i++) {
+        covered[i - span.start()] = true;
+      }
+    }
+    long count = 0;
+    for (boolean c : covered) {
+      count += c ? 1 : 0;
+    }
+    return count;
+  }
+
+  private static double percentile(long[] sortedNanos, double percentile) {
+    int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+    return sortedNanos[Math.max(0, index)] / 1e6;
+  }
+
+  private static String percent(double ratio) {
+    return String.format(Locale.ROOT, "%.1f%%", ratio * 100);
+  }
+}
@@ -0,0 +1,66 @@
+package com.trinhhoctuan.articlecheck.config;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.languagetool.JLanguageTool;
+import org.languagetool.rules.RuleMatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.trinhhoctuan.articlecheck.benchmark.EssayCorpus;
+import com.trinhhoctuan.articlecheck.models.GrammarCheck.ErrorSeverity;
+
+/**
+ * LanguageTool check and RuleMatch conversion cost per essay size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GrammarCheckBenchmark {
+  @Param({ "1", "10", "50" })
+  private int pages;
+
+  private JLanguageTool languageTool;
+  private String essay;
+  private List<RuleMatch> ruleMatches;
+  private String[] categoryNames;
+
+  @Setup
+  public void setUp() throws IOException {
+    languageTool = EssayCorpus.newLanguageTool();
+    essay = EssayCorpus.pages(pages);
+    ruleMatches = languageTool.check(essay);
+    categoryNames = ruleMatches.stream()
+        .map(match -> match.getRule().getCategory().getName())
+        .toArray(String[]::new);
+  }
+
+  @Benchmark
+  public List<RuleMatch> check() throws IOException {
+    return languageTool.check(essay);
+  }
+
+  @Benchmark
+  public void convertToGrammarMatch(Blackhole blackhole) {
+    for (RuleMatch match : ruleMatches) {
+      blackhole.consume(GrammarCheckEngine.convertToGrammarMatch(match, 0));
+    }
+  }
+
+  @Benchmark
+  public void mapSeverity(Blackhole blackhole) {
+    for (String categoryName : categoryNames) {
+      ErrorSeverity severity = GrammarCheckEngine.mapSeverity(categoryName);
+      blackhole.consume(severity);
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package com.trinhhoctuan.articlecheck.mappers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.languagetool.rules.RuleMatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.trinhhoctuan.articlecheck.benchmark.EssayCorpus;
+import com.trinhhoctuan.articlecheck.models.GrammarCheck;
+import com.trinhhoctuan.articlecheck.models.GrammarCheck.ErrorSeverity;
+
+/**
+ * GrammarCheck entity to DTO mapping cost per essay size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GrammarCheckMapperBenchmark {
+  @Param({ "1", "10", "50" })
+  private int pages;
+
+  private final GrammarCheckMapper grammarCheckMapper = new GrammarCheckMapper();
+  private List<GrammarCheck> grammarChecks;
+
+  @Setup
+  public void setUp() {
+    String text = EssayCorpus.pages(pages);
+    List<RuleMatch> matches = EssayCorpus.ruleMatches(text);
+    grammarChecks = new ArrayList<>(matches.size());
+    for (int i = 0; i < matches.size(); i++) {
+      RuleMatch match = matches.get(i);
+      grammarChecks.add(GrammarCheck.builder()
+          .id((long) i)
+          .startPosition(match.getFromPos())
+          .endPosition(match.getToPos())
+          .errorText(text.substring(match.getFromPos(), match.getToPos()))
+          .ruleId(match.getRule().getId())
+          .message(match.getMessage())
+          .severity(ErrorSeverity.LOW)
+          .isFixed(false)
+          .build());
+    }
+  }
+
+  @Benchmark
+  public void convertToDto(Blackhole blackhole) {
+    for (GrammarCheck grammarCheck : grammarChecks) {
+      blackhole.consume(grammarCheckMapper.convertToDto(grammarCheck));
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package com.trinhhoctuan.articlecheck.services.impl;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.trinhhoctuan.articlecheck.benchmark.EssayCorpus;
+import com.trinhhoctuan.articlecheck.dtos.GrammarMatch;
+import com.trinhhoctuan.articlecheck.models.Essay;
+import com.trinhhoctuan.articlecheck.models.GrammarCheck.ErrorSeverity;
+
+/**
+ * GrammarMatch to GrammarCheck entity conversion cost per essay size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GrammarConversionBenchmark {
+  @Param({ "1", "10", "50" })
+  private int pages;
+
+  private Essay essay;
+  private String text;
+  private List<GrammarMatch> matches;
+
+  @Setup
+  public void setUp() {
+    text = EssayCorpus.pages(pages);
+    essay = Essay.builder().id(1L).title("Benchmark").originalContent(text).build();
+    matches = EssayCorpus.ruleMatches(text).stream()
+        .map(match -> new GrammarMatch(match.getFromPos(), match.getToPos(), match.getRule().getId(),
+            match.getMessage(), String.join(", ", match.getSuggestedReplacements()), ErrorSeverity.LOW))
+        .toList();
+  }
+
+  @Benchmark
+  public void convertToGrammarCheck(Blackhole blackhole) {
+    for (GrammarMatch match : matches) {
+      blackhole.consume(GrammarCheckServiceImpl.convertToGrammarCheck(match, essay, text));
+    }
+  }
+}
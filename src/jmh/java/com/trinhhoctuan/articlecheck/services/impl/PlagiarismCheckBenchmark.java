@@ -0,0 +1,65 @@
+package com.trinhhoctuan.articlecheck.services.impl;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.trinhhoctuan.articlecheck.benchmark.PlagiarismCorpus;
+import com.trinhhoctuan.articlecheck.benchmark.PlagiarismHarness;
+import com.trinhhoctuan.articlecheck.enums.PlagiarismMode;
+
+/**
+ * Essays checked per second (Throughput) and latency percentiles
+ * (SampleTime) of PlagiarismCheckService.checkPlagiarism per reference
+ * corpus size and mode, over essays cycling through all copy variants.
+ * Detection quality is reported by PlagiarismQualityReport.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PlagiarismCheckBenchmark {
+  private static final int ESSAYS = 100;
+
+  @Param({ "100", "1000", "5000" })
+  private int corpusSize;
+
+  @Param({ "BOTH", "SENTENCE", "WINNOWING" })
+  private PlagiarismMode mode;
+
+  private PlagiarismHarness harness;
+  private String[] essays;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    PlagiarismCorpus corpus = new PlagiarismCorpus(corpusSize, 42);
+    harness = new PlagiarismHarness(corpus, mode);
+    PlagiarismCorpus.Variant[] variants = PlagiarismCorpus.Variant.values();
+    essays = new String[ESSAYS];
+    for (int i = 0; i < ESSAYS; i++) {
+      essays[i] = corpus.sample(variants[i % variants.length]).text();
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    harness.close();
+  }
+
+  @Benchmark
+  public Object checkPlagiarism() {
+    String essay = essays[next];
+    next = (next + 1) % essays.length;
+    return harness.check(essay);
+  }
+}
@@ -0,0 +1,114 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Primitive fingerprint index against a boxed HashMap baseline: building the
+ * index and looking up one essay's fingerprints in it. The gc profiler's
+ * gc.alloc.rate.norm of the build benchmarks approximates the bytes per
+ * fingerprint, including garbage from resizing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FingerprintIndexBenchmark {
+  private static final int FINGERPRINTS_PER_ESSAY = 1000;
+
+  @Param({ "100000", "1000000" })
+  private int fingerprints;
+
+  private long[][] essayHashes;
+  private int[] offsets;
+  private long[] queryHashes;
+  private FingerprintIndex primitiveIndex;
+  private Map<Long, List<Posting>> boxedIndex;
+
+  private record Posting(int document, int offset) {
+  }
+
+  @Setup
+  public void setUp() {
+    SplittableRandom random = new SplittableRandom(42);
+    essayHashes = new long[fingerprints / FINGERPRINTS_PER_ESSAY][FINGERPRINTS_PER_ESSAY];
+    for (long[] hashes : essayHashes) {
+      for (int i = 0; i < hashes.length; i++) {
+        hashes[i] = random.nextLong();
+      }
+    }
+    offsets = new int[FINGERPRINTS_PER_ESSAY];
+    for (int i = 0; i < offsets.length; i++) {
+      offsets[i] = i * 10;
+    }
+
+    // Half of the query fingerprints are in the index
+    queryHashes = new long[FINGERPRINTS_PER_ESSAY];
+    for (int i = 0; i < queryHashes.length; i++) {
+      queryHashes[i] = i % 2 == 0 ? essayHashes[i % essayHashes.length][i] : random.nextLong();
+    }
+    primitiveIndex = buildPrimitive();
+    boxedIndex = buildBoxed();
+  }
+
+  @Benchmark
+  public FingerprintIndex buildPrimitiveIndex() {
+    return buildPrimitive();
+  }
+
+  @Benchmark
+  public Map<Long, List<Posting>> buildBoxedIndex() {
+    return buildBoxed();
+  }
+
+  @Benchmark
+  public void lookupPrimitiveIndex(Blackhole blackhole) {
+    for (long hash : queryHashes) {
+      primitiveIndex.forEach(hash, (document, offset) -> blackhole.consume(document + offset));
+    }
+  }
+
+  @Benchmark
+  public void lookupBoxedIndex(Blackhole blackhole) {
+    for (long hash : queryHashes) {
+      List<Posting> postings = boxedIndex.get(hash);
+      if (postings != null) {
+        for (Posting posting : postings) {
+          blackhole.consume(posting.document() + posting.offset());
+        }
+      }
+    }
+  }
+
+  private FingerprintIndex buildPrimitive() {
+    FingerprintIndex index = new FingerprintIndex();
+    for (int document = 0; document < essayHashes.length; document++) {
+      index.add(document, essayHashes[document], offsets);
+    }
+    return index;
+  }
+
+  private Map<Long, List<Posting>> buildBoxed() {
+    Map<Long, List<Posting>> index = new HashMap<>();
+    for (int document = 0; document < essayHashes.length; document++) {
+      long[] hashes = essayHashes[document];
+      for (int i = 0; i < hashes.length; i++) {
+        index.computeIfAbsent(hashes[i], key -> new ArrayList<>(1)).add(new Posting(document, offsets[i]));
+      }
+    }
+    return index;
+  }
+}
@@ -0,0 +1,28 @@
+package com.trinhhoctuan.articlecheck.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class FileProcessingConfig {
+  /**
+   * Threads that extract page ranges of large PDFs in parallel (parallelism
+   * 0 = number of CPUs).
+   */
+  @Bean(destroyMethod = "shutdown")
+  public ExecutorService pdfExtractionExecutor(
+      @Value("${app.file.pdf.parallelism:0}") int parallelism) {
+    AtomicInteger threadCount = new AtomicInteger();
+    int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    return Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "pdf-extractor-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+}
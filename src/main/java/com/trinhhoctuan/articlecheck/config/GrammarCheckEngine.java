@@ -0,0 +1,305 @@
+package com.trinhhoctuan.articlecheck.config;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+import org.languagetool.JLanguageTool;
+import org.languagetool.rules.RuleMatch;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.trinhhoctuan.articlecheck.dtos.GrammarMatch;
+import com.trinhhoctuan.articlecheck.models.GrammarCheck.ErrorSeverity;
+import com.trinhhoctuan.articlecheck.utils.BoundedCache;
+import com.trinhhoctuan.articlecheck.utils.HashUtil;
+import com.trinhhoctuan.articlecheck.utils.IgnoreWordsOverlay;
+import com.trinhhoctuan.articlecheck.utils.TextSegmenter;
+import com.trinhhoctuan.articlecheck.utils.TextSpan;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs LanguageTool checks on pooled instances of the text's detected
+ * language. Long texts are split into sentence runs checked in parallel on
+ * the grammar workers, and results are cached per document and per sentence.
+ */
+@Component
+@Slf4j
+public class GrammarCheckEngine {
+  private final LanguageToolRegistry languageToolRegistry;
+  private final ExecutorService grammarExecutor;
+  private final int shardThresholdChars;
+  private final int shardSizeChars;
+  private final String dictionaryVersion;
+  private final BoundedCache<String, List<GrammarMatch>> documentCache;
+  private final BoundedCache<SentenceKey, List<GrammarMatch>> sentenceCache;
+
+  private record SentenceKey(String sentence, String context) {
+  }
+
+  public GrammarCheckEngine(
+      LanguageToolRegistry languageToolRegistry,
+      @Qualifier("grammarExecutor") ExecutorService grammarExecutor,
+      @Value("${app.grammar.shard.threshold-chars:20000}") int shardThresholdChars,
+      @Value("${app.grammar.shard.size-chars:5000}") int shardSizeChars,
+      @Value("${app.grammar.dictionary-version:1}") String dictionaryVersion,
+      @Value("${app.grammar.cache.document-size:1000}") int documentCacheSize,
+      @Value("${app.grammar.cache.sentence-size:100000}") int sentenceCacheSize,
+      MeterRegistry meterRegistry) {
+    this.languageToolRegistry = languageToolRegistry;
+    this.grammarExecutor = grammarExecutor;
+    this.shardThresholdChars = shardThresholdChars;
+    this.shardSizeChars = shardSizeChars;
+    this.dictionaryVersion = dictionaryVersion;
+    this.documentCache = new BoundedCache<>(documentCacheSize);
+    this.sentenceCache = new BoundedCache<>(sentenceCacheSize);
+
+    registerCacheMetrics(meterRegistry, "document", documentCache);
+    registerCacheMetrics(meterRegistry, "sentence", sentenceCache);
+  }
+
+  /**
+   * Check a whole text. An identical text checked before with the same rules
+   * and ignore words is answered from the document cache.
+   *
+   * @param text
+   * @param ignoreWords
+   * @return Matches sorted by position.
+   * @throws IOException
+   */
+  public List<GrammarMatch> check(String text, IgnoreWordsOverlay ignoreWords) throws IOException {
+    try (LanguageToolRegistry.PoolLease lease = languageToolRegistry.acquire(
+        languageToolRegistry.detectLanguage(text))) {
+      JLanguageToolPool pool = lease.getPool();
+      String context = getCacheContext(pool, ignoreWords);
+      String documentKey = HashUtil.sha256Hex(text) + ":" + context;
+
+      List<GrammarMatch> cached = documentCache.get(documentKey);
+      if (cached != null) {
+        return cached;
+      }
+
+      List<GrammarMatch> matches = List.copyOf(checkRanges(pool, text, List.of(new TextSpan(0, text.length())),
+          ignoreWords, context));
+      documentCache.put(documentKey, matches);
+      return matches;
+    }
+  }
+
+  /**
+   * Check only the given ranges of a text, such as edited paragraphs. The
+   * language is detected from the whole text.
+   *
+   * @param text
+   * @param ranges
+   * @param ignoreWords
+   * @return Matches sorted by position, relative to the whole text.
+   * @throws IOException
+   */
+  public List<GrammarMatch> check(String text, List<TextSpan> ranges, IgnoreWordsOverlay ignoreWords)
+      throws IOException {
+    try (LanguageToolRegistry.PoolLease lease = languageToolRegistry.acquire(
+        languageToolRegistry.detectLanguage(text))) {
+      JLanguageToolPool pool = lease.getPool();
+      return checkRanges(pool, text, ranges, ignoreWords, getCacheContext(pool, ignoreWords));
+    }
+  }
+
+  /**
+   * Check the sentences of the given ranges. Cached sentences are reused; the
+   * remaining ones are grouped into runs of adjacent sentences that are
+   * checked in parallel, and their results are cached per sentence.
+   */
+  private List<GrammarMatch> checkRanges(JLanguageToolPool pool, String text, List<TextSpan> ranges,
+      IgnoreWordsOverlay ignoreWords, String context) throws IOException {
+    int maxRunChars = text.length() <= shardThresholdChars ? Integer.MAX_VALUE : shardSizeChars;
+
+    List<GrammarMatch> matches = new ArrayList<>();
+    List<List<TextSpan>> runs = new ArrayList<>();
+    List<TextSpan> currentRun = new ArrayList<>();
+    for (TextSpan range : ranges) {
+      for (TextSpan sentence : TextSegmenter.sentences(text, range)) {
+        List<GrammarMatch> cached = sentenceCache.get(new SentenceKey(sentence.of(text), context));
+        if (cached != null) {
+          cached.forEach(match -> matches.add(match.shift(sentence.start())));
+          currentRun = closeRun(runs, currentRun);
+          continue;
+        }
+        if (!currentRun.isEmpty() && sentence.end() - currentRun.get(0).start() > maxRunChars) {
+          currentRun = closeRun(runs, currentRun);
+        }
+        currentRun.add(sentence);
+      }
+      currentRun = closeRun(runs, currentRun);
+    }
+
+    List<TextSpan> runSpans = runs.stream()
+        .map(run -> new TextSpan(run.get(0).start(), run.get(run.size() - 1).end()))
+        .toList();
+    List<List<GrammarMatch>> runMatches = checkInParallel(pool, text, runSpans, ignoreWords);
+    for (int i = 0; i < runs.size(); i++) {
+      cacheSentences(text, runs.get(i), runMatches.get(i), context);
+      matches.addAll(runMatches.get(i));
+    }
+
+    matches.sort(Comparator.comparingInt(GrammarMatch::fromPos));
+    return matches;
+  }
+
+  private List<TextSpan> closeRun(List<List<TextSpan>> runs, List<TextSpan> run) {
+    if (run.isEmpty()) {
+      return run;
+    }
+    runs.add(run);
+    return new ArrayList<>();
+  }
+
+  /**
+   * Split the matches of a run between its sentences and cache them with
+   * sentence-relative offsets. Sentences with a match reaching past their end
+   * depend on the following text and are not cached.
+   */
+  private void cacheSentences(String text, List<TextSpan> sentences, List<GrammarMatch> matches, String context) {
+    int matchIndex = 0;
+    for (int i = 0; i < sentences.size(); i++) {
+      TextSpan sentence = sentences.get(i);
+      int nextStart = i + 1 < sentences.size() ? sentences.get(i + 1).start() : Integer.MAX_VALUE;
+      List<GrammarMatch> sentenceMatches = new ArrayList<>();
+      boolean cacheable = true;
+      while (matchIndex < matches.size() && matches.get(matchIndex).fromPos() < nextStart) {
+        GrammarMatch match = matches.get(matchIndex++);
+        cacheable &= match.fromPos() >= sentence.start() && match.toPos() <= sentence.end();
+        sentenceMatches.add(match.shift(-sentence.start()));
+      }
+      if (cacheable) {
+        sentenceCache.put(new SentenceKey(sentence.of(text), context), List.copyOf(sentenceMatches));
+      }
+    }
+  }
+
+  /**
+   * Check several spans of the text in parallel on the grammar workers.
+   *
+   * @return Matches of each span, in span order, relative to the whole text.
+   */
+  private List<List<GrammarMatch>> checkInParallel(JLanguageToolPool pool, String text, List<TextSpan> spans,
+      IgnoreWordsOverlay ignoreWords) throws IOException {
+    if (spans.size() <= 1) {
+      return spans.isEmpty() ? List.of() : List.of(checkSpan(pool, text, spans.get(0), ignoreWords));
+    }
+
+    List<CompletableFuture<List<GrammarMatch>>> futures = spans.stream()
+        .map(span -> CompletableFuture.supplyAsync(() -> {
+          try {
+            return checkSpan(pool, text, span, ignoreWords);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }, grammarExecutor))
+        .toList();
+
+    List<List<GrammarMatch>> results = new ArrayList<>();
+    try {
+      for (CompletableFuture<List<GrammarMatch>> future : futures) {
+        results.add(future.join());
+      }
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof UncheckedIOException uncheckedIOException) {
+        throw uncheckedIOException.getCause();
+      }
+      throw e;
+    }
+    return results;
+  }
+
+  /**
+   * Check one span of the text on a pooled LanguageTool instance.
+   *
+   * @return Matches sorted by position, relative to the whole text.
+   */
+  private List<GrammarMatch> checkSpan(JLanguageToolPool pool, String text, TextSpan span,
+      IgnoreWordsOverlay ignoreWords) throws IOException {
+    String spanText = span.of(text);
+    List<RuleMatch> matches = ignoreWords.filter(
+        pool.execute(languageTool -> languageTool.check(spanText)), spanText);
+    return matches.stream()
+        .map(match -> convertToGrammarMatch(match, span.start()))
+        .sorted(Comparator.comparingInt(GrammarMatch::fromPos))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Convert a RuleMatch to a GrammarMatch.
+   *
+   * @param match
+   * @param offset The position of the checked text within the whole text.
+   * @return
+   */
+  static GrammarMatch convertToGrammarMatch(RuleMatch match, int offset) {
+    return new GrammarMatch(
+        offset + match.getFromPos(),
+        offset + match.getToPos(),
+        match.getRule().getId(),
+        match.getMessage(),
+        match.getSuggestedReplacements().isEmpty() ? null : String.join(", ", match.getSuggestedReplacements()),
+        mapSeverity(match.getRule().getCategory().getName()));
+  }
+
+  /**
+   * Map a category name to an error severity level.
+   *
+   * @param categoryName
+   * @return
+   */
+  static ErrorSeverity mapSeverity(String categoryName) {
+    if (categoryName.contains("Grammar") || categoryName.contains("Punctuation")) {
+      return ErrorSeverity.HIGH;
+    } else if (categoryName.contains("Style")) {
+      return ErrorSeverity.MEDIUM;
+    } else {
+      return ErrorSeverity.LOW;
+    }
+  }
+
+  /**
+   * Cached results are only valid for the same language, LanguageTool
+   * release, dictionary version and ignore words.
+   */
+  private String getCacheContext(JLanguageToolPool pool, IgnoreWordsOverlay ignoreWords) {
+    return pool.getLanguageCode() + ":" + JLanguageTool.VERSION + ":" + dictionaryVersion + ":"
+        + ignoreWords.getFingerprint();
+  }
+
+  private void registerCacheMetrics(MeterRegistry meterRegistry, String level, BoundedCache<?, ?> cache) {
+    FunctionCounter.builder("grammar.cache.requests", cache, BoundedCache::getHits)
+        .description("Grammar result cache lookups")
+        .tags("level", level, "result", "hit")
+        .register(meterRegistry);
+    FunctionCounter.builder("grammar.cache.requests", cache, BoundedCache::getMisses)
+        .description("Grammar result cache lookups")
+        .tags("level", level, "result", "miss")
+        .register(meterRegistry);
+    Gauge.builder("grammar.cache.hit.ratio", cache, c -> {
+      long total = c.getHits() + c.getMisses();
+      return total == 0 ? 0.0 : (double) c.getHits() / total;
+    })
+        .description("Fraction of grammar result cache lookups that were hits")
+        .tag("level", level)
+        .register(meterRegistry);
+    Gauge.builder("grammar.cache.size", cache, BoundedCache::size)
+        .description("Entries in the grammar result cache")
+        .tag("level", level)
+        .register(meterRegistry);
+  }
+}
@@ -1,15 +1,74 @@
 package com.trinhhoctuan.articlecheck.config;
 
-import org.languagetool.JLanguageTool;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.trinhhoctuan.articlecheck.constants.CommonConstants;
+import com.trinhhoctuan.articlecheck.utils.MappedDictionary;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
 @Configuration
 public class JLanguageToolConfig {
+  private final int poolSize;
+  private final Duration borrowTimeout;
+
+  public JLanguageToolConfig(
+      @Value("${app.grammar.pool.size:0}") int poolSize,
+      @Value("${app.grammar.pool.borrow-timeout-ms:30000}") long borrowTimeoutMs) {
+    this.poolSize = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+    this.borrowTimeout = Duration.ofMillis(borrowTimeoutMs);
+  }
 
   @Bean
-  public JLanguageTool jLanguageTool() {
+  public LanguageToolRegistry languageToolRegistry(
+      @Value("${app.grammar.language:vi}") String defaultLanguage,
+      @Value("${app.grammar.registry.memory-budget-mb:4096}") long memoryBudgetMb,
+      @Value("${app.grammar.registry.instance-cost-mb:150}") long instanceCostMb,
+      @Value("${app.grammar.registry.idle-timeout-ms:600000}") long idleTimeoutMs,
+      @Value("${app.grammar.dictionary.data-dir:}") String dictionaryDataDir,
+      MeterRegistry meterRegistry) throws IOException {
     System.setProperty("jdk.xml.totalEntitySizeLimit", "0");
-    return new JLanguageTool(new VietnameseLanguage());
+    if (!dictionaryDataDir.isBlank()) {
+      System.setProperty(MappedDictionary.DATA_DIR_PROPERTY, dictionaryDataDir);
+    }
+    return new LanguageToolRegistry(defaultLanguage, CommonConstants.SUPPORTED_LANGUAGES, poolSize, borrowTimeout,
+        memoryBudgetMb, instanceCostMb, Duration.ofMillis(idleTimeoutMs), meterRegistry);
+  }
+
+  /**
+   * Worker threads that run grammar check shards in parallel, one per pooled
+   * LanguageTool instance.
+   */
+  @Bean(destroyMethod = "shutdown")
+  public ExecutorService grammarExecutor() {
+    AtomicInteger threadCount = new AtomicInteger();
+    return Executors.newFixedThreadPool(poolSize, runnable -> {
+      Thread thread = new Thread(runnable, "grammar-worker-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Threads that process essays of submitted batches, one per pooled
+   * LanguageTool instance. They are separate from the grammar workers because
+   * an essay check waits on shards running there.
+   */
+  @Bean(destroyMethod = "shutdown")
+  public ExecutorService essayBatchExecutor() {
+    AtomicInteger threadCount = new AtomicInteger();
+    return Executors.newFixedThreadPool(poolSize, runnable -> {
+      Thread thread = new Thread(runnable, "essay-batch-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
   }
 }
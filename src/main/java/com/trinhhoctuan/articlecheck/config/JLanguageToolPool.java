@@ -0,0 +1,173 @@
+package com.trinhhoctuan.articlecheck.config;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.languagetool.JLanguageTool;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded pool of pre-initialized JLanguageTool instances for one language.
+ * JLanguageTool is not thread-safe, so every check borrows an exclusive
+ * instance and gives it back when done.
+ */
+@Slf4j
+public class JLanguageToolPool {
+  private static final String WARM_UP_TEXT = "Xin chào.";
+
+  private final String languageCode;
+  private final int size;
+  private final Duration borrowTimeout;
+  private final BlockingQueue<JLanguageTool> idleTools;
+  private final AtomicInteger inUse = new AtomicInteger();
+  private final Timer waitTimer;
+  private final Counter borrowTimeouts;
+  private final MeterRegistry meterRegistry;
+  private final List<Gauge> gauges;
+
+  public JLanguageToolPool(
+      String languageCode,
+      Supplier<JLanguageTool> toolFactory,
+      int size,
+      Duration borrowTimeout,
+      MeterRegistry meterRegistry) {
+    this.languageCode = languageCode;
+    this.size = size;
+    this.borrowTimeout = borrowTimeout;
+    this.idleTools = new ArrayBlockingQueue<>(size);
+    this.meterRegistry = meterRegistry;
+
+    for (int i = 0; i < size; i++) {
+      idleTools.add(warmUp(toolFactory.get()));
+    }
+
+    this.waitTimer = Timer.builder("grammar.pool.wait")
+        .description("Time spent waiting to borrow a LanguageTool instance")
+        .tag("language", languageCode)
+        .register(meterRegistry);
+    this.borrowTimeouts = Counter.builder("grammar.pool.borrow.timeouts")
+        .description("Borrow attempts that timed out waiting for a LanguageTool instance")
+        .tag("language", languageCode)
+        .register(meterRegistry);
+    this.gauges = List.of(
+        Gauge.builder("grammar.pool.utilization", this, pool -> (double) pool.inUse.get() / pool.size)
+            .description("Fraction of LanguageTool instances currently borrowed")
+            .tag("language", languageCode)
+            .register(meterRegistry),
+        Gauge.builder("grammar.pool.size", this, pool -> pool.size)
+            .description("Number of LanguageTool instances in the pool")
+            .tag("language", languageCode)
+            .register(meterRegistry));
+
+    log.info("Initialized LanguageTool pool for {} with {} instances", languageCode, size);
+  }
+
+  /**
+   * Callback executed with an exclusively borrowed LanguageTool instance.
+   */
+  @FunctionalInterface
+  public interface ToolCallback<T> {
+    T apply(JLanguageTool tool) throws IOException;
+  }
+
+  /**
+   * Borrow an instance, run the callback with it and return it to the pool.
+   *
+   * @param callback
+   * @return
+   * @throws IOException
+   */
+  public <T> T execute(ToolCallback<T> callback) throws IOException {
+    JLanguageTool tool = borrow();
+    try {
+      return callback.apply(tool);
+    } finally {
+      release(tool);
+    }
+  }
+
+  /**
+   * Get the language code this pool serves.
+   *
+   * @return
+   */
+  public String getLanguageCode() {
+    return languageCode;
+  }
+
+  /**
+   * Get the number of instances in the pool.
+   *
+   * @return
+   */
+  public int getSize() {
+    return size;
+  }
+
+  /**
+   * Get the number of instances currently borrowed.
+   *
+   * @return
+   */
+  public int getInUse() {
+    return inUse.get();
+  }
+
+  /**
+   * Release the pooled instances and unregister the pool gauges. Instances
+   * still borrowed are returned to the closed pool and dropped with it.
+   */
+  public void close() {
+    idleTools.clear();
+    gauges.forEach(meterRegistry::remove);
+  }
+
+  private JLanguageTool borrow() {
+    long start = System.nanoTime();
+    try {
+      JLanguageTool tool = idleTools.poll(borrowTimeout.toMillis(), TimeUnit.MILLISECONDS);
+      if (tool == null) {
+        borrowTimeouts.increment();
+        throw new IllegalStateException(
+            "Timed out after " + borrowTimeout.toMillis() + " ms waiting for a LanguageTool instance ("
+                + languageCode + ")");
+      }
+      inUse.incrementAndGet();
+      return tool;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for a LanguageTool instance", e);
+    } finally {
+      waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private void release(JLanguageTool tool) {
+    inUse.decrementAndGet();
+    idleTools.offer(tool);
+  }
+
+  /**
+   * Run one short check so rule and dictionary loading happens at startup
+   * instead of on the first request.
+   */
+  private JLanguageTool warmUp(JLanguageTool tool) {
+    try {
+      tool.check(WARM_UP_TEXT);
+    } catch (IOException e) {
+      log.warn("LanguageTool warm-up failed for {}", languageCode, e);
+    }
+    return tool;
+  }
+}
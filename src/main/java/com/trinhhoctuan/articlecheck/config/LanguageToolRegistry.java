@@ -0,0 +1,311 @@
+package com.trinhhoctuan.articlecheck.config;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.tika.langdetect.optimaize.OptimaizeLangDetector;
+import org.apache.tika.language.detect.LanguageDetector;
+import org.apache.tika.language.detect.LanguageResult;
+import org.languagetool.JLanguageTool;
+import org.languagetool.Language;
+import org.languagetool.Languages;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Registry of per-language LanguageTool pools. Detects the language of a text
+ * and lazily creates the pool for it, keeping the estimated memory of all
+ * pools within a budget by evicting pools that have been idle the longest;
+ * when nothing can be evicted, the text is checked with the default language.
+ * Pools idle for longer than the idle timeout are also closed periodically.
+ * Pools are handed out as leases, and a pool is never evicted while it is
+ * leased.
+ */
+@Slf4j
+public class LanguageToolRegistry {
+  private static final int MAX_DETECTION_CHARS = 2000;
+
+  private final String defaultLanguage;
+  private final Set<String> supportedLanguages;
+  private final int poolSize;
+  private final Duration borrowTimeout;
+  private final long memoryBudgetMb;
+  private final long instanceCostMb;
+  private final Duration idleTimeout;
+  private final MeterRegistry meterRegistry;
+  // Detectors are not thread-safe; up to poolSize are created on demand
+  private final BlockingQueue<LanguageDetector> idleDetectors = new LinkedBlockingQueue<>();
+  private final AtomicInteger detectorCount = new AtomicInteger();
+  // Guarded by this registry; the map is concurrent only for the gauges
+  private final Map<String, RegisteredPool> pools = new ConcurrentHashMap<>();
+
+  private static final class RegisteredPool {
+    // Completed by the thread that registered the pool, outside the lock
+    private final CompletableFuture<JLanguageToolPool> pool = new CompletableFuture<>();
+    private long lastUsedNanos = System.nanoTime();
+    private int leases;
+  }
+
+  /**
+   * Use of a language's pool, which keeps the pool from being evicted until
+   * the lease is closed.
+   */
+  public final class PoolLease implements AutoCloseable {
+    private final RegisteredPool registered;
+    private final JLanguageToolPool pool;
+    private boolean closed;
+
+    private PoolLease(RegisteredPool registered, JLanguageToolPool pool) {
+      this.registered = registered;
+      this.pool = pool;
+    }
+
+    public JLanguageToolPool getPool() {
+      return pool;
+    }
+
+    @Override
+    public void close() {
+      synchronized (LanguageToolRegistry.this) {
+        if (!closed) {
+          closed = true;
+          registered.leases--;
+          registered.lastUsedNanos = System.nanoTime();
+        }
+      }
+    }
+  }
+
+  public LanguageToolRegistry(
+      String defaultLanguage,
+      List<String> supportedLanguages,
+      int poolSize,
+      Duration borrowTimeout,
+      long memoryBudgetMb,
+      long instanceCostMb,
+      Duration idleTimeout,
+      MeterRegistry meterRegistry) throws IOException {
+    this.defaultLanguage = defaultLanguage;
+    this.supportedLanguages = new HashSet<>(supportedLanguages);
+    this.poolSize = poolSize;
+    this.borrowTimeout = borrowTimeout;
+    this.memoryBudgetMb = memoryBudgetMb;
+    this.instanceCostMb = instanceCostMb;
+    this.idleTimeout = idleTimeout;
+    this.meterRegistry = meterRegistry;
+    idleDetectors.add(createDetector());
+    detectorCount.set(1);
+
+    Gauge.builder("grammar.registry.languages", pools, Map::size)
+        .description("Languages with a resident LanguageTool pool")
+        .register(meterRegistry);
+    Gauge.builder("grammar.registry.estimated.memory", this, registry -> registry.getEstimatedMemoryMb())
+        .description("Estimated memory of all resident LanguageTool pools")
+        .baseUnit("megabytes")
+        .register(meterRegistry);
+
+    // The default language is always resident
+    acquire(defaultLanguage).close();
+  }
+
+  /**
+   * Detect the language of a text, falling back to the default language when
+   * the text is too short, the guess is uncertain or the language is not
+   * supported.
+   *
+   * @param text
+   * @return A language code with a pool in this registry.
+   * @throws IOException
+   */
+  public String detectLanguage(String text) throws IOException {
+    LanguageDetector languageDetector = borrowDetector();
+    LanguageResult result;
+    try {
+      languageDetector.reset();
+      result = languageDetector.detect(text.length() > MAX_DETECTION_CHARS
+          ? text.substring(0, MAX_DETECTION_CHARS)
+          : text);
+    } finally {
+      idleDetectors.add(languageDetector);
+    }
+    if (result.isReasonablyCertain() && supportedLanguages.contains(result.getLanguage())) {
+      return result.getLanguage();
+    }
+    return defaultLanguage;
+  }
+
+  /**
+   * Lease the pool of a language, creating it on first use. The lookup,
+   * the eviction of idle pools and the lease are one step, so a leased pool
+   * cannot be evicted; the lease must be closed once its checks are done.
+   * When a new pool would exceed the memory budget and no idle pool can be
+   * evicted, the pool of the default language is leased instead.
+   *
+   * @param languageCode
+   * @return
+   */
+  public PoolLease acquire(String languageCode) {
+    RegisteredPool registered;
+    boolean created = false;
+    synchronized (this) {
+      registered = pools.get(languageCode);
+      if (registered == null && !languageCode.equals(defaultLanguage) && !makeRoom(instanceCostMb * poolSize)) {
+        log.warn("LanguageTool memory budget of {} MB is full, checking {} text as {}", memoryBudgetMb,
+            languageCode, defaultLanguage);
+        languageCode = defaultLanguage;
+        registered = pools.get(languageCode);
+      }
+      if (registered == null) {
+        registered = new RegisteredPool();
+        pools.put(languageCode, registered);
+        created = true;
+      }
+      registered.leases++;
+      registered.lastUsedNanos = System.nanoTime();
+    }
+
+    // A new pool is built outside the lock; other leases of it wait here
+    if (created) {
+      try {
+        registered.pool.complete(createPool(languageCode));
+      } catch (RuntimeException e) {
+        synchronized (this) {
+          pools.remove(languageCode, registered);
+        }
+        registered.pool.completeExceptionally(e);
+      }
+    }
+    try {
+      return new PoolLease(registered, registered.pool.join());
+    } catch (CompletionException e) {
+      synchronized (this) {
+        registered.leases--;
+      }
+      throw e.getCause() instanceof RuntimeException cause ? cause : e;
+    }
+  }
+
+  /**
+   * Get the estimated memory held by all resident pools.
+   *
+   * @return
+   */
+  public long getEstimatedMemoryMb() {
+    return pools.size() * poolSize * instanceCostMb;
+  }
+
+  /**
+   * Close the pools of all languages idle for longer than the idle timeout,
+   * so they do not stay resident until another language needs the memory.
+   */
+  @Scheduled(initialDelayString = "${app.grammar.registry.eviction-interval-ms:60000}",
+      fixedDelayString = "${app.grammar.registry.eviction-interval-ms:60000}")
+  public synchronized void evictIdlePools() {
+    while (evictEldestIdlePool()) {
+      // Until no pool is idle
+    }
+  }
+
+  /**
+   * Evict idle pools, least recently used first, until the requested memory
+   * fits the budget. Called with the registry locked.
+   *
+   * @return false if the budget cannot be met.
+   */
+  private boolean makeRoom(long requiredMb) {
+    while (getEstimatedMemoryMb() + requiredMb > memoryBudgetMb) {
+      if (!evictEldestIdlePool()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Evict the pool idle the longest, if it has been idle for longer than the
+   * idle timeout. The default language and leased pools are never evicted.
+   * Called with the registry locked.
+   *
+   * @return false if no pool was evicted.
+   */
+  private boolean evictEldestIdlePool() {
+    long idleBefore = System.nanoTime() - idleTimeout.toNanos();
+    Optional<Map.Entry<String, RegisteredPool>> eldest = pools.entrySet().stream()
+        .filter(entry -> !entry.getKey().equals(defaultLanguage))
+        .filter(entry -> entry.getValue().leases == 0)
+        .filter(entry -> entry.getValue().lastUsedNanos - idleBefore < 0)
+        .min(Comparator.comparingLong(entry -> entry.getValue().lastUsedNanos));
+    if (eldest.isEmpty()) {
+      return false;
+    }
+    pools.remove(eldest.get().getKey());
+    // Not leased, so its pool has been built and nobody is borrowing from it
+    eldest.get().getValue().pool.join().close();
+    log.info("Evicted idle LanguageTool pool for {}", eldest.get().getKey());
+    return true;
+  }
+
+  /**
+   * Take an idle language detector, creating one while fewer than poolSize
+   * exist and waiting for one otherwise.
+   */
+  private LanguageDetector borrowDetector() throws IOException {
+    LanguageDetector languageDetector = idleDetectors.poll();
+    if (languageDetector != null) {
+      return languageDetector;
+    }
+    if (detectorCount.getAndUpdate(count -> count < poolSize ? count + 1 : count) < poolSize) {
+      try {
+        return createDetector();
+      } catch (IOException | RuntimeException e) {
+        detectorCount.decrementAndGet();
+        throw e;
+      }
+    }
+    try {
+      return idleDetectors.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for a language detector", e);
+    }
+  }
+
+  private LanguageDetector createDetector() throws IOException {
+    return new OptimaizeLangDetector(MAX_DETECTION_CHARS).loadModels(supportedLanguages);
+  }
+
+  private JLanguageToolPool createPool(String languageCode) {
+    Language language = resolveLanguage(languageCode);
+    return new JLanguageToolPool(languageCode, () -> new JLanguageTool(language), poolSize, borrowTimeout,
+        meterRegistry);
+  }
+
+  /**
+   * Resolve a language code to a LanguageTool language, preferring the
+   * default variant (e.g. en-US for en) so spell checking is available.
+   */
+  private Language resolveLanguage(String languageCode) {
+    VietnameseLanguage vietnamese = new VietnameseLanguage();
+    if (vietnamese.getShortCode().equals(languageCode)) {
+      return vietnamese;
+    }
+    Language language = Languages.getLanguageForShortCode(languageCode);
+    Language variant = language.getDefaultLanguageVariant();
+    return variant != null ? variant : language;
+  }
+}
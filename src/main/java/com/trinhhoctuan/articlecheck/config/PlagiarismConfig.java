@@ -0,0 +1,138 @@
+package com.trinhhoctuan.articlecheck.config;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.trinhhoctuan.articlecheck.constants.CommonConstants;
+import com.trinhhoctuan.articlecheck.utils.LocalIndexShard;
+import com.trinhhoctuan.articlecheck.utils.PlagiarismIndexShard;
+import com.trinhhoctuan.articlecheck.utils.RemoteIndexShard;
+import com.trinhhoctuan.articlecheck.utils.ShardedFingerprintIndex;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Configuration
+@Slf4j
+public class PlagiarismConfig {
+  /**
+   * Single worker that fingerprints uploaded essays into the reference
+   * corpus, outside the upload request and transaction.
+   */
+  @Bean(destroyMethod = "shutdown")
+  public ExecutorService referenceIndexExecutor() {
+    return Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "reference-indexer");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Threads that run the plagiarism stage of processed essays, so that
+   * processing returns once grammar is checked.
+   */
+  @Bean(destroyMethod = "shutdown")
+  public ExecutorService plagiarismCheckExecutor(
+      @Value("${app.plagiarism.stage.concurrency:2}") int concurrency) {
+    AtomicInteger threadCount = new AtomicInteger();
+    return Executors.newFixedThreadPool(Math.max(1, concurrency), runnable -> {
+      Thread thread = new Thread(runnable, "plagiarism-check-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Fork-join pool that scores the sentences of an essay in parallel, kept
+   * apart from the common pool so scoring cannot starve other parallel work.
+   */
+  @Bean(destroyMethod = "shutdown")
+  public ForkJoinPool plagiarismScoringPool(
+      @Value("${app.plagiarism.scoring.parallelism:0}") int parallelism) {
+    return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+        pool -> {
+          ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+          thread.setName("plagiarism-scorer-" + thread.getPoolIndex());
+          thread.setDaemon(true);
+          return thread;
+        }, null, false);
+  }
+
+  /**
+   * Threads that scatter fingerprint index requests to the shards.
+   */
+  @Bean(destroyMethod = "shutdown")
+  public ExecutorService plagiarismShardExecutor(
+      @Value("${app.plagiarism.shards.count:1}") int shardCount) {
+    AtomicInteger threadCount = new AtomicInteger();
+    return Executors.newFixedThreadPool(Math.max(1, shardCount), runnable -> {
+      Thread thread = new Thread(runnable, "plagiarism-shard-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Winnowing fingerprint index split by hash range into the configured
+   * number of shards. Shards listed as remote ("number=baseUrl", comma
+   * separated) are hosted by those nodes, which must be configured with the
+   * same shard count and winnowing parameters; all others are hosted here,
+   * persisted in the data directory if one is set.
+   */
+  @Bean(destroyMethod = "close")
+  public ShardedFingerprintIndex fingerprintShards(
+      @Value("${app.plagiarism.shards.count:1}") int shardCount,
+      @Value("${app.plagiarism.shards.remote:}") String remote,
+      @Value("${app.plagiarism.shards.data-dir:}") String dataDir,
+      @Value("${app.plagiarism.shards.token:}") String token,
+      @Value("${app.plagiarism.shards.timeout-ms:5000}") long timeoutMs,
+      @Value("${app.plagiarism.winnowing.kgram-length:25}") int kgramLength,
+      @Value("${app.plagiarism.winnowing.window-size:20}") int windowSize,
+      @Qualifier("plagiarismShardExecutor") ExecutorService plagiarismShardExecutor) throws IOException {
+    if (shardCount <= 0) {
+      throw new IllegalArgumentException("Shard count must be positive");
+    }
+    Map<Integer, String> remoteUrls = new HashMap<>();
+    for (String entry : remote.split(CommonConstants.COMMA)) {
+      if (entry.isBlank()) {
+        continue;
+      }
+      String[] parts = entry.split("=", 2);
+      int shard = Integer.parseInt(parts[0].trim());
+      if (parts.length != 2 || shard < 0 || shard >= shardCount) {
+        throw new IllegalArgumentException("Invalid remote shard: " + entry);
+      }
+      remoteUrls.put(shard, parts[1].trim());
+    }
+    if (!remoteUrls.isEmpty() && token.isBlank()) {
+      throw new IllegalArgumentException("A shard token is required with remote shards");
+    }
+
+    List<PlagiarismIndexShard> shards = new ArrayList<>(shardCount);
+    for (int shard = 0; shard < shardCount; shard++) {
+      if (remoteUrls.containsKey(shard)) {
+        shards.add(new RemoteIndexShard(remoteUrls.get(shard), shard, token, Duration.ofMillis(timeoutMs)));
+      } else {
+        Path path = dataDir.isBlank() ? null : Path.of(dataDir, "shard-" + shard + "-of-" + shardCount + ".bin");
+        shards.add(new LocalIndexShard(path, kgramLength, windowSize));
+      }
+    }
+    log.info("Fingerprint index has {} shards, {} hosted remotely", shardCount, remoteUrls.size());
+    return new ShardedFingerprintIndex(shards, plagiarismShardExecutor);
+  }
+}
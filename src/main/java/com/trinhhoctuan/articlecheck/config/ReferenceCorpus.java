@@ -0,0 +1,419 @@
+package com.trinhhoctuan.articlecheck.config;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.trinhhoctuan.articlecheck.utils.BoundedCache;
+import com.trinhhoctuan.articlecheck.utils.HashUtil;
+import com.trinhhoctuan.articlecheck.utils.MinHashLshIndex;
+import com.trinhhoctuan.articlecheck.utils.PlagiarismIndexShard;
+import com.trinhhoctuan.articlecheck.utils.ReferenceCorpusFile;
+import com.trinhhoctuan.articlecheck.utils.ShardedFingerprintIndex;
+import com.trinhhoctuan.articlecheck.utils.ShingleProfile;
+import com.trinhhoctuan.articlecheck.utils.TextSpan;
+import com.trinhhoctuan.articlecheck.utils.Winnowing;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reference sentences that essays are checked against for plagiarism. The
+ * corpus is persisted in a memory-mapped {@link ReferenceCorpusFile} and its
+ * sentences are indexed with MinHash LSH and its documents with winnowing
+ * fingerprints, both rebuilt from the stored hashes when the application
+ * starts. Fingerprints go to the hash-partitioned
+ * {@link ShardedFingerprintIndex}, which may span several nodes; shards
+ * ignore documents they already hold, so every stored document is sent again
+ * in the background once the application is ready. Shingle profiles of recently scored sentences
+ * are cached so they are not re-shingled for every checked sentence.
+ */
+@Component
+@Slf4j
+public class ReferenceCorpus {
+  // Fingerprints found in more documents are boilerplate, not copying
+  private static final int MAX_FINGERPRINT_DOCUMENTS = 1000;
+  // Candidates read between checks of the deadline
+  private static final int DEADLINE_CHECK_INTERVAL = 64;
+
+  private final MinHashLshIndex index;
+  private final Winnowing winnowing;
+  private final ShardedFingerprintIndex fingerprintShards;
+  private final int minPassageFingerprints;
+  private final int topSources;
+  private final ReferenceCorpusFile corpusFile;
+  private final BoundedCache<Integer, ShingleProfile> profileCache;
+  private final ExecutorService referenceIndexExecutor;
+  private final int replayAttempts;
+  private final long replayBackoffMs;
+  // Documents stored when the corpus was opened, sent again to the shards
+  private final int storedDocuments;
+  private final List<ReferenceDocument> documents = new ArrayList<>();
+  private final Set<Long> essayIds = new HashSet<>();
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  // Per sentence id: its document and the position of its text in the file
+  private int[] sentenceDocuments = new int[1024];
+  private long[] sentenceTextPositions = new long[1024];
+  private int sentenceCount;
+
+  private record ReferenceDocument(long essayId, String sourceName, String sourceUrl) {
+  }
+
+  /**
+   * A reference sentence sharing an LSH band with a checked sentence.
+   */
+  public record Candidate(int id, String text, ShingleProfile profile, long essayId, String sourceName,
+      String sourceUrl) {
+  }
+
+  /**
+   * A passage of a checked text sharing winnowing fingerprints with a
+   * reference document.
+   *
+   * @param span       The passage in the checked text.
+   * @param similarity The share of the passage's fingerprints found in the
+   *                   document.
+   */
+  public record PassageMatch(TextSpan span, double similarity, long essayId, String sourceName,
+      String sourceUrl) {
+  }
+
+  public ReferenceCorpus(
+      @Value("${app.plagiarism.corpus.path:./data/reference-corpus.bin}") String corpusPath,
+      @Value("${app.plagiarism.lsh.bands:32}") int lshBands,
+      @Value("${app.plagiarism.lsh.rows:4}") int lshRows,
+      @Value("${app.plagiarism.lsh.shingle-size:5}") int shingleSize,
+      @Value("${app.plagiarism.profile-cache-size:200000}") int profileCacheSize,
+      @Value("${app.plagiarism.winnowing.kgram-length:25}") int kgramLength,
+      @Value("${app.plagiarism.winnowing.window-size:20}") int windowSize,
+      @Value("${app.plagiarism.winnowing.min-fingerprints:3}") int minPassageFingerprints,
+      @Value("${app.plagiarism.winnowing.top-sources:20}") int topSources,
+      @Value("${app.plagiarism.shards.replay-attempts:3}") int replayAttempts,
+      @Value("${app.plagiarism.shards.replay-backoff-ms:1000}") long replayBackoffMs,
+      ShardedFingerprintIndex fingerprintShards,
+      @Qualifier("referenceIndexExecutor") ExecutorService referenceIndexExecutor) throws IOException {
+    this.index = new MinHashLshIndex(lshBands, lshRows, shingleSize);
+    this.winnowing = new Winnowing(kgramLength, windowSize);
+    this.fingerprintShards = fingerprintShards;
+    this.minPassageFingerprints = Math.max(1, minPassageFingerprints);
+    this.topSources = Math.max(1, topSources);
+    this.profileCache = new BoundedCache<>(profileCacheSize);
+    this.referenceIndexExecutor = referenceIndexExecutor;
+    this.replayAttempts = Math.max(1, replayAttempts);
+    this.replayBackoffMs = Math.max(0, replayBackoffMs);
+    this.corpusFile = ReferenceCorpusFile.open(Path.of(corpusPath), lshBands, lshRows, shingleSize, kgramLength,
+        windowSize);
+
+    long start = System.nanoTime();
+    corpusFile.forEachDocument(stored -> {
+      int document = registerDocument(stored.essayId(), stored.sourceName(), stored.sourceUrl());
+      long[] textPositions = stored.textPositions();
+      for (int i = 0; i < textPositions.length; i++) {
+        long[] keys = stored.bandKeys() != null
+            ? stored.bandKeys().get(i)
+            : index.bandKeys(index.signature(corpusFile.readText(textPositions[i])));
+        index.add(registerSentence(document, textPositions[i]), keys);
+      }
+    });
+    this.storedDocuments = documents.size();
+    log.info("Opened reference corpus {} with {} documents and {} sentences in {} ms", corpusPath,
+        documents.size(), sentenceCount, (System.nanoTime() - start) / 1_000_000);
+  }
+
+  /**
+   * Send the fingerprints of the stored documents to the shards again, on
+   * the reference index worker so that startup does not wait for remote
+   * shards. Each document is retried on its own; a document that still
+   * cannot be sent is skipped and sent again on the next start.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void replayFingerprints() {
+    referenceIndexExecutor.execute(() -> {
+      long start = System.nanoTime();
+      int[] counts = new int[2]; // Visited and failed documents
+      corpusFile.forEachDocument(stored -> {
+        // Documents added since the corpus was opened were sent when added
+        if (counts[0]++ >= storedDocuments) {
+          return;
+        }
+        long[] hashes = stored.fingerprints();
+        int[] offsets = stored.fingerprintOffsets();
+        if (hashes == null) {
+          // Only the indexed sentences of the original text are stored
+          List<String> texts = Arrays.stream(stored.textPositions()).mapToObj(corpusFile::readText).toList();
+          Winnowing.Fingerprints fingerprints = winnowing.fingerprint(String.join(" ", texts));
+          hashes = fingerprints.hashes();
+          offsets = fingerprints.starts();
+        }
+        PlagiarismIndexShard.Source source = source(stored.essayId(), stored.sourceName(), stored.sourceUrl(),
+            hashes);
+        if (!sendFingerprints(source, hashes, offsets)) {
+          counts[1]++;
+        }
+      });
+      int sent = Math.min(counts[0], storedDocuments);
+      log.info("Sent {} of {} stored documents to the fingerprint index shards in {} ms, {} local fingerprints",
+          sent - counts[1], sent, (System.nanoTime() - start) / 1_000_000, fingerprintShards.localSize());
+    });
+  }
+
+  private boolean sendFingerprints(PlagiarismIndexShard.Source source, long[] hashes, int[] offsets) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        fingerprintShards.add(source, hashes, offsets);
+        return true;
+      } catch (RuntimeException e) {
+        if (attempt >= replayAttempts) {
+          log.warn("Cannot send document {} to all shards after {} attempts", source.document(), attempt, e);
+          return false;
+        }
+      }
+      try {
+        Thread.sleep(replayBackoffMs * attempt);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Add a document and persist it.
+   *
+   * @param essayId    The essay the document was taken from, or 0.
+   * @param sourceName
+   * @param sourceUrl
+   * @param text       The full text, fingerprinted by winnowing.
+   * @param sentences  The sentences to index for sentence scoring.
+   * @throws IOException
+   */
+  public void addDocument(long essayId, String sourceName, String sourceUrl, String text, List<String> sentences)
+      throws IOException {
+    List<long[]> bandKeys = sentences.stream()
+        .map(sentence -> index.bandKeys(index.signature(sentence)))
+        .toList();
+    Winnowing.Fingerprints fingerprints = winnowing.fingerprint(text);
+
+    // Appends are serialized so sentence ids follow the file order
+    synchronized (corpusFile) {
+      long[] textPositions = corpusFile.append(essayId, sourceName, sourceUrl, sentences, bandKeys,
+          fingerprints.hashes(), fingerprints.starts());
+      int document;
+      int[] ids = new int[sentences.size()];
+      lock.writeLock().lock();
+      try {
+        document = registerDocument(essayId, sourceName, sourceUrl);
+        for (int i = 0; i < ids.length; i++) {
+          ids[i] = registerSentence(document, textPositions[i]);
+        }
+      } finally {
+        lock.writeLock().unlock();
+      }
+      for (int i = 0; i < ids.length; i++) {
+        index.add(ids[i], bandKeys.get(i));
+      }
+    }
+    try {
+      fingerprintShards.add(source(essayId, sourceName, sourceUrl, fingerprints.hashes()), fingerprints.hashes(),
+          fingerprints.starts());
+    } catch (RuntimeException e) {
+      // The document is stored and sent again on the next start
+      log.warn("Cannot add the fingerprints of {} to all shards", sourceName, e);
+    }
+  }
+
+  /**
+   * Check if an essay has already been added.
+   *
+   * @param essayId
+   * @return
+   */
+  public boolean containsEssay(long essayId) {
+    lock.readLock().lock();
+    try {
+      return essayIds.contains(essayId);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Find the reference sentences likely to be similar to a sentence. Once
+   * the deadline passes, the candidates read so far are returned.
+   *
+   * @param sentence
+   * @param deadline The System.nanoTime() to stop reading candidates at.
+   * @return
+   */
+  public List<Candidate> candidates(String sentence, long deadline) {
+    int[] ids = index.candidates(index.bandKeys(index.signature(sentence)));
+    List<Candidate> candidates = new ArrayList<>(ids.length);
+    for (int i = 0; i < ids.length; i++) {
+      if (i % DEADLINE_CHECK_INTERVAL == DEADLINE_CHECK_INTERVAL - 1 && isExpired(deadline)) {
+        break;
+      }
+      int id = ids[i];
+      ReferenceDocument document;
+      long textPosition;
+      lock.readLock().lock();
+      try {
+        document = documents.get(sentenceDocuments[id]);
+        textPosition = sentenceTextPositions[id];
+      } finally {
+        lock.readLock().unlock();
+      }
+      String text = corpusFile.readText(textPosition);
+      ShingleProfile profile = profileCache.get(id, key -> ShingleProfile.of(text));
+      candidates.add(new Candidate(id, text, profile, document.essayId(), document.sourceName(),
+          document.sourceUrl()));
+    }
+    return candidates;
+  }
+
+  /**
+   * Find the passages of a text copied from reference documents, across
+   * sentence boundaries. The fingerprints of the text are looked up in all
+   * shards, and the occurrences gathered per document; only the documents
+   * sharing the most fingerprints are kept. Fingerprints of the text shared
+   * with a document are merged into passages while they are at most a k-gram
+   * apart; passages with fewer than the minimum number of shared fingerprints
+   * are dropped. Once the deadline passes, the passages found so far are
+   * returned.
+   *
+   * @param text
+   * @param ownEssayId The essay of the text, whose own document is skipped.
+   * @param deadline   The System.nanoTime() to stop building passages at.
+   * @return
+   */
+  public List<PassageMatch> copiedPassages(String text, long ownEssayId, long deadline) {
+    Winnowing.Fingerprints fingerprints = winnowing.fingerprint(text);
+    if (isExpired(deadline)) {
+      return List.of();
+    }
+    PlagiarismIndexShard.Postings postings = fingerprintShards.lookup(fingerprints.hashes(),
+        MAX_FINGERPRINT_DOCUMENTS);
+
+    // Indexes of the text's fingerprints shared with each document
+    BitSet[] shared = new BitSet[postings.sources().size()];
+    for (int i = 0; i < postings.size(); i++) {
+      int document = postings.documents()[i];
+      if (shared[document] == null) {
+        shared[document] = new BitSet(fingerprints.size());
+      }
+      shared[document].set(postings.fingerprints()[i]);
+    }
+    int[] sharedCounts = Arrays.stream(shared).mapToInt(BitSet::cardinality).toArray();
+
+    // Documents sharing the most fingerprints, in a min-heap of the top ones
+    PriorityQueue<Integer> top = new PriorityQueue<>((a, b) -> Integer.compare(sharedCounts[a], sharedCounts[b]));
+    for (int document = 0; document < shared.length; document++) {
+      PlagiarismIndexShard.Source source = postings.sources().get(document);
+      if (ownEssayId != 0 && source.essayId() == ownEssayId || sharedCounts[document] < minPassageFingerprints) {
+        continue;
+      }
+      top.add(document);
+      if (top.size() > topSources) {
+        top.poll();
+      }
+    }
+
+    List<PassageMatch> passages = new ArrayList<>();
+    for (int document : top) {
+      if (isExpired(deadline)) {
+        break;
+      }
+      PlagiarismIndexShard.Source source = postings.sources().get(document);
+      int[] indexes = shared[document].stream().toArray();
+      int gap = winnowing.getKgramLength();
+      int first = 0;
+      for (int i = 1; i <= indexes.length; i++) {
+        boolean passageEnds = i == indexes.length
+            || fingerprints.starts()[indexes[i]] - fingerprints.ends()[indexes[i - 1]] > gap;
+        if (!passageEnds) {
+          continue;
+        }
+        int matched = i - first;
+        if (matched >= minPassageFingerprints) {
+          int firstIndex = indexes[first];
+          int lastIndex = indexes[i - 1];
+          // Shared fingerprints among all of the text's fingerprints in the passage
+          double similarity = (double) matched / (lastIndex - firstIndex + 1);
+          passages.add(new PassageMatch(
+              new TextSpan(fingerprints.starts()[firstIndex], fingerprints.ends()[lastIndex]), similarity,
+              source.essayId(), source.sourceName(), source.sourceUrl()));
+        }
+        first = i;
+      }
+    }
+    passages.sort((a, b) -> Integer.compare(a.span().start(), b.span().start()));
+    return passages;
+  }
+
+  /**
+   * Get the number of indexed sentences.
+   *
+   * @return
+   */
+  public int size() {
+    return index.size();
+  }
+
+  @PreDestroy
+  public void close() throws IOException {
+    corpusFile.close();
+  }
+
+  /**
+   * Identify a document the same way on every node: essays by their id,
+   * other reference texts by a negative hash of their source and fingerprints.
+   */
+  private static PlagiarismIndexShard.Source source(long essayId, String sourceName, String sourceUrl,
+      long[] fingerprints) {
+    long document = essayId;
+    if (essayId == 0) {
+      long hash = HashUtil.hash64(sourceName + "\n" + sourceUrl);
+      for (long fingerprint : fingerprints) {
+        hash = hash * 31 + fingerprint;
+      }
+      document = -1 - (hash >>> 1);
+    }
+    return new PlagiarismIndexShard.Source(document, sourceName, sourceUrl);
+  }
+
+  private static boolean isExpired(long deadline) {
+    return System.nanoTime() - deadline > 0;
+  }
+
+  private int registerDocument(long essayId, String sourceName, String sourceUrl) {
+    documents.add(new ReferenceDocument(essayId, sourceName, sourceUrl));
+    if (essayId != 0) {
+      essayIds.add(essayId);
+    }
+    return documents.size() - 1;
+  }
+
+  private int registerSentence(int document, long textPosition) {
+    if (sentenceCount == sentenceDocuments.length) {
+      sentenceDocuments = Arrays.copyOf(sentenceDocuments, sentenceCount * 2);
+      sentenceTextPositions = Arrays.copyOf(sentenceTextPositions, sentenceCount * 2);
+    }
+    sentenceDocuments[sentenceCount] = document;
+    sentenceTextPositions[sentenceCount] = textPosition;
+    return sentenceCount++;
+  }
+}
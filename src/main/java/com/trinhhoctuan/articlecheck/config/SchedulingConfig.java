@@ -0,0 +1,13 @@
+package com.trinhhoctuan.articlecheck.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the periodic maintenance tasks, such as the sweep of unreferenced
+ * upload files.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
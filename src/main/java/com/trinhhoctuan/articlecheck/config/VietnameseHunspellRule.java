@@ -1,16 +1,30 @@
 package com.trinhhoctuan.articlecheck.config;
 
 import java.io.IOException;
+import java.text.Normalizer;
+import java.util.List;
+import java.util.Locale;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.languagetool.Language;
 import org.languagetool.UserConfig;
+import org.languagetool.rules.spelling.hunspell.HunspellDictionary;
 import org.languagetool.rules.spelling.hunspell.HunspellRule;
 
+import com.trinhhoctuan.articlecheck.utils.MappedDictionary;
+
+/**
+ * Vietnamese spell checking against the precompiled, memory-mapped word list
+ * built from dictionaries/vi_VN.dic by the compileDictionaries Gradle task.
+ */
 public class VietnameseHunspellRule extends HunspellRule {
   private final String RULE_ID = "VIETNAMESE_HUNSPELL_RULE";
   private final String RULE_DESCRIPTION = "Vietnamese spell checking using Hunspell";
-  private final String DICT_RESOURCE_PATH = "src/main/resources/dictionaries/";
+  private final String DICT_RESOURCE_PATH = "/dictionaries/";
+  private static final Locale VIETNAMESE = Locale.forLanguageTag("vi");
+  private static final int MAX_SUGGESTIONS = 10;
 
   public VietnameseHunspellRule(ResourceBundle messages, Language language, UserConfig userConfig) throws IOException {
     super(messages, language, userConfig, null);
@@ -26,8 +40,75 @@ public class VietnameseHunspellRule extends HunspellRule {
     return RULE_DESCRIPTION;
   }
 
+  /**
+   * Classpath base of the dictionary. It is neither a LanguageTool data
+   * resource nor an existing file path, so {@link HunspellRule#init()} skips
+   * loading native Hunspell and {@link #init()} installs the mapped dictionary.
+   */
   @Override
   public String getDictFilenameInResources(String langCountry) {
     return DICT_RESOURCE_PATH + langCountry;
   }
+
+  @Override
+  protected synchronized void init() throws IOException {
+    super.init();
+    String langCountry = language.getShortCode() + "_" + language.getCountries()[0];
+    hunspell = new MappedHunspellDictionary(MappedDictionary.forResource(getDictFilenameInResources(langCountry)));
+  }
+
+  /**
+   * HunspellDictionary view of a shared mapped word list. Words added at
+   * runtime are kept per instance.
+   */
+  private static class MappedHunspellDictionary implements HunspellDictionary {
+    private final MappedDictionary dictionary;
+    private final Set<String> addedWords = ConcurrentHashMap.newKeySet();
+
+    private MappedHunspellDictionary(MappedDictionary dictionary) {
+      this.dictionary = dictionary;
+    }
+
+    @Override
+    public boolean spell(String word) {
+      // Tokenizing around punctuation yields empty words, which Hunspell accepts
+      if (word.isEmpty()) {
+        return true;
+      }
+      String normalized = Normalizer.normalize(word, Normalizer.Form.NFC);
+      if (isKnown(normalized)) {
+        return true;
+      }
+      // Like Hunspell, accept capitalized and all-caps forms of known words
+      String lowerCase = normalized.toLowerCase(VIETNAMESE);
+      boolean capitalized = normalized.substring(1).equals(normalized.substring(1).toLowerCase(VIETNAMESE));
+      boolean allCaps = normalized.equals(normalized.toUpperCase(VIETNAMESE));
+      return (capitalized || allCaps) && isKnown(lowerCase);
+    }
+
+    @Override
+    public void add(String word) {
+      addedWords.add(Normalizer.normalize(word, Normalizer.Form.NFC));
+    }
+
+    @Override
+    public List<String> suggest(String word) {
+      return dictionary.suggest(Normalizer.normalize(word, Normalizer.Form.NFC).toLowerCase(VIETNAMESE),
+          MAX_SUGGESTIONS);
+    }
+
+    @Override
+    public boolean isClosed() {
+      return false;
+    }
+
+    @Override
+    public void close() {
+      // The mapping is shared by all instances and lives as long as the JVM
+    }
+
+    private boolean isKnown(String word) {
+      return dictionary.contains(word) || addedWords.contains(word);
+    }
+  }
 }
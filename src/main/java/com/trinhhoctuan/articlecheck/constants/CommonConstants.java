@@ -16,7 +16,9 @@ public class CommonConstants {
 			"/actuator/prometheus",
 			"/api/auth/**",
 			"/oauth2/**",
-			"/login/oauth2/**"
+			"/login/oauth2/**",
+			// Fingerprint index shards, authenticated by the shared shard token
+			"/internal/plagiarism/shards/**"
 	};
 	public static final String[] ADMIN_ENDPOINTS = new String[] {
 			"/actuator/**",
@@ -44,8 +46,8 @@ public class CommonConstants {
 	public static final String ROLE_PREFIX = "ROLE_";
 	public static final String GOOGLE_REGISTRATION_ID = "google";
 
-	// Languages Supported
-	public static final List<String> SUPPORTED_LANGUAGES = List.of("en", "es", "fr", "de", "zh", "ja", "ru");
+	// Languages Supported (grammar checks are routed to the detected language)
+	public static final List<String> SUPPORTED_LANGUAGES = List.of("vi", "en", "es", "fr", "de", "zh", "ja", "ru");
 
 	// Pagination Constants
 	public static final int DEFAULT_PAGE_SIZE = 10;
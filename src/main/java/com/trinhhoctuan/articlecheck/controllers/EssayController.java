@@ -8,13 +8,16 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.trinhhoctuan.articlecheck.dtos.BatchProgressDto;
 import com.trinhhoctuan.articlecheck.dtos.EssayDto;
 import com.trinhhoctuan.articlecheck.dtos.FileUploadResponse;
+import com.trinhhoctuan.articlecheck.services.EssayBatchService;
 import com.trinhhoctuan.articlecheck.services.EssayService;
 
 import lombok.extern.slf4j.Slf4j;
@@ -25,9 +28,13 @@ import lombok.extern.slf4j.Slf4j;
 @CrossOrigin(origins = "*")
 public class EssayController {
   private final EssayService essayService;
+  private final EssayBatchService essayBatchService;
+  // DTOs
+  private record BatchProcessRequest(List<Long> essayIds, Long wordsId) {};
 
-  public EssayController(EssayService essayService) {
+  public EssayController(EssayService essayService, EssayBatchService essayBatchService) {
     this.essayService = essayService;
+    this.essayBatchService = essayBatchService;
   }
 
   @PostMapping("/upload")
@@ -61,6 +68,34 @@ public class EssayController {
     }
   }
 
+  @PostMapping("/batch/process")
+  public ResponseEntity<BatchProgressDto> processEssays(@RequestBody BatchProcessRequest request) {
+    log.info("Processing batch of {} essays with words: {}",
+        request.essayIds() != null ? request.essayIds().size() : 0, request.wordsId());
+
+    try {
+      BatchProgressDto progress = essayBatchService.submitBatch(request.essayIds(), request.wordsId());
+      return ResponseEntity.accepted().body(progress);
+    } catch (IllegalArgumentException e) {
+      log.warn("Rejected essay batch: {}", e.getMessage());
+      return ResponseEntity.badRequest().build();
+    } catch (Exception e) {
+      log.error("Error submitting essay batch", e);
+      return ResponseEntity.internalServerError().build();
+    }
+  }
+
+  @GetMapping("/batch/{batchId}")
+  public ResponseEntity<BatchProgressDto> getBatchProgress(@PathVariable String batchId) {
+    try {
+      BatchProgressDto progress = essayBatchService.getBatchProgress(batchId);
+      return ResponseEntity.ok(progress);
+    } catch (Exception e) {
+      log.error("Error getting batch progress: {}", batchId, e);
+      return ResponseEntity.notFound().build();
+    }
+  }
+
   @GetMapping("/{essayId}")
   public ResponseEntity<EssayDto> getEssay(@PathVariable Long essayId) {
     try {
@@ -87,10 +122,11 @@ public class EssayController {
   public ResponseEntity<EssayDto> updateEssayContent(
       @PathVariable Long essayId,
       @RequestParam String content,
-      @RequestParam(defaultValue = "Manual content update") String description) {
+      @RequestParam(defaultValue = "Manual content update") String description,
+      @RequestParam(required = false) Long wordsId) {
 
     try {
-      EssayDto updatedEssay = essayService.updateEssayContent(essayId, content, description);
+      EssayDto updatedEssay = essayService.updateEssayContent(essayId, content, description, wordsId);
       return ResponseEntity.ok(updatedEssay);
     } catch (Exception e) {
       log.error("Error updating essay content: {}", essayId, e);
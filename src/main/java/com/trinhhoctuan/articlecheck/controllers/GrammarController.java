@@ -2,18 +2,22 @@ package com.trinhhoctuan.articlecheck.controllers;
 
 import java.util.List;
 
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.trinhhoctuan.articlecheck.dtos.GrammarCheckDto;
 import com.trinhhoctuan.articlecheck.services.GrammarCheckService;
 
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
 
 @RestController
 @RequestMapping("/grammar")
@@ -37,6 +41,27 @@ public class GrammarController {
     }
   }
 
+  /**
+   * Stream grammar checks of an essay as server-sent events while it is being
+   * checked. Each result is a "grammar-check" event; a final "complete" or
+   * "error" event ends the stream.
+   */
+  @GetMapping(value = "/essay/{essayId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public Flux<ServerSentEvent<GrammarCheckDto>> streamGrammarChecks(
+      @PathVariable Long essayId,
+      @RequestParam(required = false) Long wordsId) {
+    return grammarCheckService.streamGrammarChecks(essayId, wordsId)
+        .map(grammarCheck -> ServerSentEvent.builder(grammarCheck)
+            .id(String.valueOf(grammarCheck.getId()))
+            .event("grammar-check")
+            .build())
+        .concatWith(Flux.just(ServerSentEvent.<GrammarCheckDto>builder().event("complete").build()))
+        .onErrorResume(e -> Flux.just(ServerSentEvent.<GrammarCheckDto>builder()
+            .event("error")
+            .comment("Grammar check failed")
+            .build()));
+  }
+
   @PutMapping("/{grammarCheckId}/fix")
   public ResponseEntity<Void> markAsFixed(@PathVariable Long grammarCheckId) {
     try {
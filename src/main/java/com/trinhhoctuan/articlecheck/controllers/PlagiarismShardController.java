@@ -0,0 +1,108 @@
+package com.trinhhoctuan.articlecheck.controllers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.trinhhoctuan.articlecheck.dtos.ShardAddRequest;
+import com.trinhhoctuan.articlecheck.dtos.ShardLookupRequest;
+import com.trinhhoctuan.articlecheck.utils.LocalIndexShard;
+import com.trinhhoctuan.articlecheck.utils.PlagiarismIndexShard;
+import com.trinhhoctuan.articlecheck.utils.RemoteIndexShard;
+import com.trinhhoctuan.articlecheck.utils.ShardedFingerprintIndex;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Node-to-node API of the fingerprint index shards hosted by this node,
+ * called by the {@link RemoteIndexShard}s of other nodes. Requests must carry
+ * the shard token shared by the nodes; without a configured token the API is
+ * closed.
+ */
+@RestController
+@RequestMapping("/internal/plagiarism/shards")
+@Slf4j
+public class PlagiarismShardController {
+  private final ShardedFingerprintIndex fingerprintShards;
+  private final String token;
+
+  public PlagiarismShardController(ShardedFingerprintIndex fingerprintShards,
+      @Value("${app.plagiarism.shards.token:}") String token) {
+    this.fingerprintShards = fingerprintShards;
+    this.token = token;
+  }
+
+  @PostMapping("/{shard}/documents")
+  public ResponseEntity<Void> addDocument(
+      @PathVariable int shard,
+      @RequestHeader(value = RemoteIndexShard.TOKEN_HEADER, required = false) String requestToken,
+      @RequestBody ShardAddRequest request) {
+    LocalIndexShard localShard = fingerprintShards.localShard(shard);
+    if (!authorized(requestToken)) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+    if (localShard == null) {
+      return ResponseEntity.notFound().build();
+    }
+    if (request.getSource() == null || request.getHashes() == null || request.getOffsets() == null
+        || request.getHashes().length != request.getOffsets().length) {
+      return ResponseEntity.badRequest().build();
+    }
+    try {
+      localShard.add(request.getSource(), request.getHashes(), request.getOffsets());
+      return ResponseEntity.ok().build();
+    } catch (Exception e) {
+      log.error("Error adding document {} to shard {}", request.getSource().document(), shard, e);
+      return ResponseEntity.internalServerError().build();
+    }
+  }
+
+  @PostMapping("/{shard}/lookup")
+  public ResponseEntity<PlagiarismIndexShard.Postings> lookup(
+      @PathVariable int shard,
+      @RequestHeader(value = RemoteIndexShard.TOKEN_HEADER, required = false) String requestToken,
+      @RequestBody ShardLookupRequest request) {
+    LocalIndexShard localShard = fingerprintShards.localShard(shard);
+    if (!authorized(requestToken)) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+    if (localShard == null) {
+      return ResponseEntity.notFound().build();
+    }
+    try {
+      return ResponseEntity.ok(localShard.lookup(request.getHashes(), request.getMaxOccurrences()));
+    } catch (Exception e) {
+      log.error("Error looking up fingerprints in shard {}", shard, e);
+      return ResponseEntity.internalServerError().build();
+    }
+  }
+
+  @GetMapping("/{shard}/size")
+  public ResponseEntity<Long> size(
+      @PathVariable int shard,
+      @RequestHeader(value = RemoteIndexShard.TOKEN_HEADER, required = false) String requestToken) {
+    LocalIndexShard localShard = fingerprintShards.localShard(shard);
+    if (!authorized(requestToken)) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+    if (localShard == null) {
+      return ResponseEntity.notFound().build();
+    }
+    return ResponseEntity.ok(localShard.size());
+  }
+
+  private boolean authorized(String requestToken) {
+    return !token.isBlank() && requestToken != null && MessageDigest.isEqual(
+        token.getBytes(StandardCharsets.UTF_8), requestToken.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,26 @@
+package com.trinhhoctuan.articlecheck.dtos;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.trinhhoctuan.articlecheck.enums.BatchStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchProgressDto {
+    private String batchId;
+    private BatchStatus status;
+    private Integer totalEssays;
+    private Integer completedEssays;
+    private Integer failedEssays;
+    private List<Long> failedEssayIds;
+    private LocalDateTime submittedAt;
+    private LocalDateTime finishedAt;
+}
@@ -24,6 +24,8 @@ public class EssayDto {
     private String fileName;
     private FileType fileType;
     private EssayStatus status;
+    private Long duplicateOfId;
+    private Boolean plagiarismPartial;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private List<GrammarCheckDto> grammarChecks;
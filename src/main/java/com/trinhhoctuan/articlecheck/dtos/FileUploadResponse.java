@@ -14,4 +14,5 @@ public class FileUploadResponse {
     private String fileName;
     private String message;
     private Boolean success;
+    private Long duplicateOfId;
 }
@@ -0,0 +1,27 @@
+package com.trinhhoctuan.articlecheck.dtos;
+
+import com.trinhhoctuan.articlecheck.models.GrammarCheck.ErrorSeverity;
+
+/**
+ * Immutable grammar check result, detached from LanguageTool and from the
+ * essay it was found in, so it can be cached and shifted between texts.
+ */
+public record GrammarMatch(
+    int fromPos,
+    int toPos,
+    String ruleId,
+    String message,
+    String suggestedReplacement,
+    ErrorSeverity severity) {
+
+  /**
+   * Get a copy of this match moved by the given number of characters.
+   *
+   * @param delta
+   * @return
+   */
+  public GrammarMatch shift(int delta) {
+    return delta == 0 ? this
+        : new GrammarMatch(fromPos + delta, toPos + delta, ruleId, message, suggestedReplacement, severity);
+  }
+}
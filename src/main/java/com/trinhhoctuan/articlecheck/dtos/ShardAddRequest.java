@@ -0,0 +1,18 @@
+package com.trinhhoctuan.articlecheck.dtos;
+
+import com.trinhhoctuan.articlecheck.utils.PlagiarismIndexShard;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShardAddRequest {
+    private PlagiarismIndexShard.Source source;
+    private long[] hashes;
+    private int[] offsets;
+}
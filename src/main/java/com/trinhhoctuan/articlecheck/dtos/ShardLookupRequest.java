@@ -0,0 +1,15 @@
+package com.trinhhoctuan.articlecheck.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShardLookupRequest {
+    private long[] hashes;
+    private int maxOccurrences;
+}
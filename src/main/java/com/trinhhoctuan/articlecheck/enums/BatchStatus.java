@@ -0,0 +1,6 @@
+package com.trinhhoctuan.articlecheck.enums;
+
+public enum BatchStatus {
+  RUNNING,
+  COMPLETED
+}
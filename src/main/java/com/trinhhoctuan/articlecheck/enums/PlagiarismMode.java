@@ -0,0 +1,7 @@
+package com.trinhhoctuan.articlecheck.enums;
+
+public enum PlagiarismMode {
+  SENTENCE,
+  WINNOWING,
+  BOTH
+}
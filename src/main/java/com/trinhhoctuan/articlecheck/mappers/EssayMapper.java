@@ -22,6 +22,8 @@ public class EssayMapper {
         .fileName(essay.getFileName())
         .fileType(essay.getFileType())
         .status(essay.getStatus())
+        .duplicateOfId(essay.getDuplicateOf() != null ? essay.getDuplicateOf().getId() : null)
+        .plagiarismPartial(essay.getPlagiarismPartial())
         .userId(essay.getUser().getId())
         .createdAt(essay.getCreatedAt())
         .updatedAt(essay.getUpdatedAt())
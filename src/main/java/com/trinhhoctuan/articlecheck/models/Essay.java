@@ -10,18 +10,20 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
 
 @Entity
-@Table(name = "essays")
+@Table(name = "essays", indexes = @Index(name = "idx_essays_content_hash", columnList = "content_hash"))
 @Data
 @SuperBuilder
 @NoArgsConstructor
@@ -44,6 +46,29 @@ public class Essay extends BaseModel {
     @Enumerated(EnumType.STRING)
     private FileType fileType;
 
+    // SHA-256 of the original content, for exact duplicates
+    @Column(length = 64)
+    private String contentHash;
+
+    // SimHash of the original content, for near-duplicates
+    @Column
+    private Long simHash;
+
+    // Earlier essay this one duplicates, if any
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "duplicate_of_id")
+    private Essay duplicateOf;
+
+    // Whether the plagiarism check ran out of its time budget
+    @Column
+    @Builder.Default
+    private Boolean plagiarismPartial = false;
+
+    // Latest scheduled plagiarism run; only set by EssayRepository.startPlagiarismRun,
+    // so saving the entity never overwrites a newer run
+    @Column(length = 36, updatable = false)
+    private String plagiarismRunId;
+
     @Enumerated(EnumType.STRING)
     private EssayStatus status;
 
@@ -1,9 +1,16 @@
 package com.trinhhoctuan.articlecheck.repositories;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.trinhhoctuan.articlecheck.models.Essay;
 import com.trinhhoctuan.articlecheck.models.Essay.EssayStatus;
@@ -13,4 +20,36 @@ public interface EssayRepository extends JpaRepository<Essay, Long> {
     List<Essay> findByUserId(Long userId);
     List<Essay> findByStatus(EssayStatus status);
     List<Essay> findByUserIdOrderByCreatedAtDesc(Long userId);
+    Optional<Essay> findFirstByUserIdAndContentHashOrderByCreatedAtAsc(Long userId, String contentHash);
+    Optional<Essay> findFirstByContentHashAndUserIdNotOrderByCreatedAtAsc(String contentHash, Long userId);
+    boolean existsByFileName(String fileName);
+    List<EssaySimHash> findByUserIdAndSimHashNotNullOrderByCreatedAtDesc(Long userId, Pageable pageable);
+    List<EssaySimHash> findByUserIdNotAndSimHashNotNullAndCreatedAtAfterOrderByCreatedAtDesc(Long userId,
+            LocalDateTime since, Pageable pageable);
+
+    // Background stages update only their own columns, never the content
+    @Modifying
+    @Transactional
+    @Query("update Essay e set e.plagiarismRunId = :runId where e.id = :id")
+    int startPlagiarismRun(@Param("id") Long id, @Param("runId") String runId);
+
+    boolean existsByIdAndPlagiarismRunId(Long id, String plagiarismRunId);
+
+    // Only the latest run of an essay still waiting for its plagiarism stage
+    @Modifying
+    @Transactional
+    @Query("update Essay e set e.status = :status, e.plagiarismPartial = :partial, e.updatedAt = :updatedAt "
+            + "where e.id = :id and e.plagiarismRunId = :runId and e.status = "
+            + "com.trinhhoctuan.articlecheck.models.Essay.EssayStatus.GRAMMAR_CHECKED")
+    int updatePlagiarismStatus(@Param("id") Long id, @Param("runId") String runId,
+            @Param("status") EssayStatus status, @Param("partial") Boolean partial,
+            @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Projection of an essay's near-duplicate fingerprint.
+     */
+    interface EssaySimHash {
+        Long getId();
+        Long getSimHash();
+    }
 }
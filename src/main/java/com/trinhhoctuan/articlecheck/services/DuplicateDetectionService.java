@@ -0,0 +1,30 @@
+package com.trinhhoctuan.articlecheck.services;
+
+import com.trinhhoctuan.articlecheck.models.Essay;
+
+/**
+ * Service interface for detecting resubmitted essays at upload time.
+ * Exact duplicates are found by content hash, near-duplicates by the SimHash
+ * distance to recent essays. Only the uploader's own essays are linked;
+ * matches with other users' essays are logged on the server.
+ */
+public interface DuplicateDetectionService {
+    /**
+     * Fingerprint a new essay's original content and link it to the earliest
+     * essay of the same user it duplicates, if any. The essay is not saved.
+     * 
+     * @param essay
+     * @param userId
+     * @return The duplicated essay, or null.
+     */
+    public Essay markDuplicate(Essay essay, Long userId);
+
+    /**
+     * Check whether an essay has exactly the content of the essay it
+     * duplicates.
+     * 
+     * @param essay
+     * @return
+     */
+    public boolean isExactDuplicate(Essay essay);
+}
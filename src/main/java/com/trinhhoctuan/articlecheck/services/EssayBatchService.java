@@ -0,0 +1,29 @@
+package com.trinhhoctuan.articlecheck.services;
+
+import java.util.List;
+
+import com.trinhhoctuan.articlecheck.dtos.BatchProgressDto;
+
+/**
+ * Service interface for processing sets of essays in the background.
+ * Essays of concurrent batches are interleaved so that every batch makes
+ * progress at the same rate.
+ */
+public interface EssayBatchService {
+    /**
+     * Schedule processing of essays of the current user.
+     * 
+     * @param essayIds
+     * @param wordListId
+     * @return The initial progress of the batch.
+     */
+    public BatchProgressDto submitBatch(List<Long> essayIds, Long wordListId);
+
+    /**
+     * Get the progress of a batch of the current user.
+     * 
+     * @param batchId
+     * @return
+     */
+    public BatchProgressDto getBatchProgress(String batchId);
+}
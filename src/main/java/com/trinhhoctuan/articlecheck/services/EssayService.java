@@ -64,7 +64,8 @@ public interface EssayService {
      * @param essayId
      * @param newContent
      * @param changeDescription
+     * @param wordListId
      * @return
      */
-    public EssayDto updateEssayContent(Long essayId, String newContent, String changeDescription);
+    public EssayDto updateEssayContent(Long essayId, String newContent, String changeDescription, Long wordListId);
 }
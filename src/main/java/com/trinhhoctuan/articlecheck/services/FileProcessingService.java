@@ -1,6 +1,9 @@
 package com.trinhhoctuan.articlecheck.services;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.function.Predicate;
 
 import org.springframework.web.multipart.MultipartFile;
 
@@ -13,13 +16,26 @@ import com.trinhhoctuan.articlecheck.enums.FileType;
  */
 public interface FileProcessingService {
   /**
-   * Extract text content from the given file.
+   * An upload stored by content.
+   *
+   * @param contentKey The SHA-256 of the content in hex, with the file
+   *                   extension; equal uploads have equal keys.
+   * @param path       The stored file.
+   * @param created    Whether this upload stored the file, rather than
+   *                   finding it already stored.
+   */
+  public record StoredFile(String contentKey, Path path, boolean created) {
+  }
+
+  /**
+   * Extract text content from a saved file.
    * 
    * @param file
+   * @param fileType
    * @return
    * @throws IOException
    */
-  public String extractTextFromFile(MultipartFile file) throws IOException;
+  public String extractTextFromFile(Path file, FileType fileType) throws IOException;
 
   /**
    * Check if the file type is supported based on its extension.
@@ -30,13 +46,35 @@ public interface FileProcessingService {
   public boolean isSupportedFileType(String fileName);
 
   /**
-   * Save the uploaded file to the system and return the saved file name.
+   * Save the uploaded file to the system, keyed by the SHA-256 of its
+   * content. An upload whose content is already stored is not written again
+   * and refers to the existing file. Stored files are never deleted on the
+   * request path, since other essays may refer to them.
    * 
    * @param file
    * @return
    * @throws IOException
    */
-  public String saveFileToSystem(MultipartFile file) throws IOException;
+  public StoredFile saveFileToSystem(MultipartFile file) throws IOException;
+
+  /**
+   * Delete the stored files no essay refers to, once they are older than
+   * the minimum age.
+   * 
+   * @param isReferenced
+   * @param minAge
+   * @return
+   * @throws IOException
+   */
+  public int deleteUnreferencedFiles(Predicate<String> isReferenced, Duration minAge) throws IOException;
+
+  /**
+   * Get the path of a stored file from its content key.
+   * 
+   * @param contentKey
+   * @return
+   */
+  public Path getStoredFilePath(String contentKey);
 
   /**
    * Get the file extension as a FileType enum from the given file name.
@@ -4,6 +4,9 @@ import java.util.List;
 
 import com.trinhhoctuan.articlecheck.dtos.GrammarCheckDto;
 import com.trinhhoctuan.articlecheck.models.Essay;
+import com.trinhhoctuan.articlecheck.utils.IgnoreWordsOverlay;
+
+import reactor.core.publisher.Flux;
 
 /**
  * Service interface for grammar checking functionalities.
@@ -16,10 +19,42 @@ public interface GrammarCheckService {
      * Check the grammar of the given text and save the results.
      * 
      * @param essay
-     * @param text
+     * @param ignoreWords
+     * @return
+     */
+    public List<GrammarCheckDto> checkGrammar(Essay essay, IgnoreWordsOverlay ignoreWords);
+
+    /**
+     * Re-check only the paragraphs that changed since the previous content and
+     * shift the stored results of unchanged paragraphs.
+     * 
+     * @param essay
+     * @param previousContent
+     * @param ignoreWords
+     * @return
+     */
+    public List<GrammarCheckDto> recheckGrammar(Essay essay, String previousContent, IgnoreWordsOverlay ignoreWords);
+
+    /**
+     * Check the grammar of an essay paragraph by paragraph, replacing its
+     * stored results once the stream completes. Results are emitted in text
+     * order as soon as their batch is saved.
+     * 
+     * @param essayId
+     * @param wordListId
+     * @return
+     */
+    public Flux<GrammarCheckDto> streamGrammarChecks(Long essayId, Long wordListId);
+
+    /**
+     * Copy the stored grammar checks of an essay to another essay with the
+     * same content.
+     * 
+     * @param source
+     * @param target
      * @return
      */
-    public List<GrammarCheckDto> checkGrammar(Essay essay, List<String> customWords);
+    public List<GrammarCheckDto> copyGrammarChecks(Essay source, Essay target);
 
     /**
      * Get all grammar checks for a specific essay.
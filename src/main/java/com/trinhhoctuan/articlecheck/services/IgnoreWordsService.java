@@ -3,6 +3,7 @@ package com.trinhhoctuan.articlecheck.services;
 import java.util.List;
 
 import com.trinhhoctuan.articlecheck.dtos.IgnoreWordsDto;
+import com.trinhhoctuan.articlecheck.utils.IgnoreWordsOverlay;
 
 public interface IgnoreWordsService {
   public List<IgnoreWordsDto> getUserIgnoreWordss();
@@ -11,6 +12,8 @@ public interface IgnoreWordsService {
   
   public List<String> getIgnoreWordssById(Long wordListId);
 
+  public IgnoreWordsOverlay getIgnoreWordsOverlay(Long wordListId, Long userId);
+
   public IgnoreWordsDto createUserIgnoreWordss(String words);
 
   public IgnoreWordsDto updateUserIgnoreWordss(Long wordListId, String words);
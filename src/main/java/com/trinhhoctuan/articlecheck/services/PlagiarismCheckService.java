@@ -19,6 +19,44 @@ public interface PlagiarismCheckService {
      */
     public List<PlagiarismCheckDto> checkPlagiarism(Essay essay, String text);
 
+    /**
+     * Add a reference text that essays are checked against.
+     * 
+     * @param sourceName
+     * @param sourceUrl
+     * @param text
+     */
+    public void addReferenceText(String sourceName, String sourceUrl, String text);
+
+    /**
+     * Fingerprint a stored essay into the reference corpus in the background,
+     * after the current transaction commits.
+     * 
+     * @param essayId
+     * @param text
+     */
+    public void scheduleReferenceIndexing(Long essayId, String text);
+
+    /**
+     * Run the plagiarism stage of an essay in the background, after the
+     * current transaction commits, superseding earlier runs of the essay.
+     * Results are saved as they are found; the essay then moves to
+     * PLAGIARISM_CHECKED, or stays GRAMMAR_CHECKED if the check fails.
+     * 
+     * @param essayId
+     */
+    public void schedulePlagiarismCheck(Long essayId);
+
+    /**
+     * Copy the stored plagiarism checks of an essay to another essay with the
+     * same content.
+     * 
+     * @param source
+     * @param target
+     * @return
+     */
+    public List<PlagiarismCheckDto> copyPlagiarismChecks(Essay source, Essay target);
+
     /**
      * Get all plagiarism checks for a specific essay.
      * 
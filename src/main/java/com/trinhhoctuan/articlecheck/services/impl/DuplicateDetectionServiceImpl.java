@@ -0,0 +1,130 @@
+package com.trinhhoctuan.articlecheck.services.impl;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.trinhhoctuan.articlecheck.models.Essay;
+import com.trinhhoctuan.articlecheck.repositories.EssayRepository;
+import com.trinhhoctuan.articlecheck.repositories.EssayRepository.EssaySimHash;
+import com.trinhhoctuan.articlecheck.services.DuplicateDetectionService;
+import com.trinhhoctuan.articlecheck.utils.HashUtil;
+import com.trinhhoctuan.articlecheck.utils.SimHash;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Implementation of the DuplicateDetectionService interface.
+ * Only the SimHash and id of recent essays are loaded, never their content.
+ */
+@Service
+@Slf4j
+public class DuplicateDetectionServiceImpl implements DuplicateDetectionService {
+  private final EssayRepository essayRepository;
+  private final int maxDistance;
+  private final int userWindow;
+  private final int globalWindow;
+  private final int globalWindowDays;
+
+  public DuplicateDetectionServiceImpl(
+      EssayRepository essayRepository,
+      @Value("${app.essay.duplicate.max-distance:3}") int maxDistance,
+      @Value("${app.essay.duplicate.user-window:200}") int userWindow,
+      @Value("${app.essay.duplicate.global-window:5000}") int globalWindow,
+      @Value("${app.essay.duplicate.global-window-days:30}") int globalWindowDays) {
+    this.essayRepository = essayRepository;
+    this.maxDistance = maxDistance;
+    this.userWindow = userWindow;
+    this.globalWindow = globalWindow;
+    this.globalWindowDays = globalWindowDays;
+  }
+
+  /**
+   * Fingerprint a new essay's original content and link it to the earliest
+   * essay of the same user it duplicates, if any. A match with another
+   * user's essay is only logged, so the uploader never learns of that essay
+   * nor receives its results. The essay is not saved.
+   * 
+   * @param essay  The new essay.
+   * @param userId The ID of the uploading user.
+   * @return The duplicated essay of the user, or null.
+   */
+  @Override
+  public Essay markDuplicate(Essay essay, Long userId) {
+    String content = essay.getOriginalContent();
+    essay.setContentHash(HashUtil.sha256Hex(content));
+    essay.setSimHash(SimHash.of(content));
+
+    Essay duplicateOf = essayRepository
+        .findFirstByUserIdAndContentHashOrderByCreatedAtAsc(userId, essay.getContentHash())
+        .orElse(null);
+    if (duplicateOf == null) {
+      Long nearestId = nearest(essay.getSimHash(),
+          essayRepository.findByUserIdAndSimHashNotNullOrderByCreatedAtDesc(userId, PageRequest.of(0, userWindow)));
+      duplicateOf = nearestId != null ? essayRepository.findById(nearestId).orElse(null) : null;
+    }
+
+    if (duplicateOf != null) {
+      log.info("Upload of user {} duplicates essay {} ({})", userId, duplicateOf.getId(),
+          Objects.equals(duplicateOf.getContentHash(), essay.getContentHash()) ? "exact" : "near");
+      essay.setDuplicateOf(duplicateOf);
+    } else {
+      logCrossUserMatch(essay, userId);
+    }
+    return duplicateOf;
+  }
+
+  /**
+   * Check whether an essay has exactly the content of the essay it
+   * duplicates.
+   * 
+   * @param essay The essay.
+   * @return True if the content hashes are equal.
+   */
+  @Override
+  public boolean isExactDuplicate(Essay essay) {
+    return essay.getDuplicateOf() != null && essay.getContentHash() != null
+        && essay.getContentHash().equals(essay.getDuplicateOf().getContentHash());
+  }
+
+  /**
+   * Log an exact or near duplicate among other users' recent essays, for
+   * review on the server side.
+   * 
+   * @param essay
+   * @param userId
+   */
+  private void logCrossUserMatch(Essay essay, Long userId) {
+    Long matchId = essayRepository
+        .findFirstByContentHashAndUserIdNotOrderByCreatedAtAsc(essay.getContentHash(), userId)
+        .map(Essay::getId)
+        .orElse(null);
+    boolean exact = matchId != null;
+    if (!exact) {
+      matchId = nearest(essay.getSimHash(),
+          essayRepository.findByUserIdNotAndSimHashNotNullAndCreatedAtAfterOrderByCreatedAtDesc(userId,
+              LocalDateTime.now().minusDays(globalWindowDays), PageRequest.of(0, globalWindow)));
+    }
+    if (matchId != null) {
+      log.info("Upload of user {} matches essay {} of another user ({})", userId, matchId,
+          exact ? "exact" : "near");
+    }
+  }
+
+  private Long nearest(long simHash, List<EssaySimHash> candidates) {
+    Long nearestId = null;
+    int nearestDistance = maxDistance + 1;
+    for (EssaySimHash candidate : candidates) {
+      int distance = SimHash.distance(simHash, candidate.getSimHash());
+      if (distance < nearestDistance) {
+        nearestId = candidate.getId();
+        nearestDistance = distance;
+      }
+    }
+    return nearestId;
+  }
+}
@@ -0,0 +1,218 @@
+package com.trinhhoctuan.articlecheck.services.impl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.trinhhoctuan.articlecheck.dtos.BatchProgressDto;
+import com.trinhhoctuan.articlecheck.enums.BatchStatus;
+import com.trinhhoctuan.articlecheck.models.Essay;
+import com.trinhhoctuan.articlecheck.repositories.EssayRepository;
+import com.trinhhoctuan.articlecheck.services.EssayBatchService;
+import com.trinhhoctuan.articlecheck.services.EssayService;
+import com.trinhhoctuan.articlecheck.services.IgnoreWordsService;
+import com.trinhhoctuan.articlecheck.utils.BoundedCache;
+import com.trinhhoctuan.articlecheck.utils.SecurityUtil;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Implementation of the EssayBatchService interface.
+ * Batches are kept in memory: running batches until they finish, then a
+ * bounded history of finished ones. Workers take essays from the active batches in
+ * round-robin order, one essay per batch per turn.
+ */
+@Service
+@Slf4j
+public class EssayBatchServiceImpl implements EssayBatchService {
+  private final EssayService essayService;
+  private final EssayRepository essayRepository;
+  private final SecurityUtil securityUtil;
+  private final IgnoreWordsService ignoreWordsService;
+  private final ExecutorService essayBatchExecutor;
+  // Running batches are never evicted; finished ones move to the bounded history
+  private final Map<String, BatchJob> runningBatches = new ConcurrentHashMap<>();
+  private final BoundedCache<String, BatchJob> finishedBatches;
+  // Batches with essays not yet taken by a worker, in turn order
+  private final Deque<BatchJob> activeBatches = new ArrayDeque<>();
+
+  private static final class BatchJob {
+    private final String id = UUID.randomUUID().toString();
+    private final Long ownerId;
+    private final Long wordListId;
+    private final int total;
+    private final Queue<Long> pendingEssayIds;
+    private final AtomicInteger completed = new AtomicInteger();
+    private final List<Long> failedEssayIds = Collections.synchronizedList(new ArrayList<>());
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+    private volatile LocalDateTime finishedAt;
+
+    private BatchJob(Long ownerId, Long wordListId, List<Long> essayIds) {
+      this.ownerId = ownerId;
+      this.wordListId = wordListId;
+      this.total = essayIds.size();
+      this.pendingEssayIds = new ArrayDeque<>(essayIds);
+    }
+
+    private boolean isDone() {
+      return completed.get() + failedEssayIds.size() == total;
+    }
+  }
+
+  public EssayBatchServiceImpl(
+      EssayService essayService,
+      EssayRepository essayRepository,
+      SecurityUtil securityUtil,
+      IgnoreWordsService ignoreWordsService,
+      @Qualifier("essayBatchExecutor") ExecutorService essayBatchExecutor,
+      @Value("${app.grammar.batch.history-size:1000}") int historySize) {
+    this.essayService = essayService;
+    this.essayRepository = essayRepository;
+    this.securityUtil = securityUtil;
+    this.ignoreWordsService = ignoreWordsService;
+    this.essayBatchExecutor = essayBatchExecutor;
+    this.finishedBatches = new BoundedCache<>(historySize);
+  }
+
+  /**
+   * Schedule processing of essays of the current user.
+   * 
+   * @param essayIds   The IDs of the essays.
+   * @param wordListId The ID of the ignore word list applied to every essay.
+   * @return The initial progress of the batch.
+   */
+  @Override
+  public BatchProgressDto submitBatch(List<Long> essayIds, Long wordListId) {
+    if (essayIds == null || essayIds.isEmpty()) {
+      throw new IllegalArgumentException("No essays to process");
+    }
+    List<Long> distinctIds = essayIds.stream().distinct().toList();
+
+    // Only the owner's essays can be batched
+    Long userId = securityUtil.getCurrentUserId();
+    List<Essay> essays = essayRepository.findAllById(distinctIds);
+    if (essays.size() != distinctIds.size()
+        || essays.stream().anyMatch(essay -> !Objects.equals(essay.getUser().getId(), userId))) {
+      throw new IllegalArgumentException("Essays not found");
+    }
+    // Fail the submission, not every essay, on a missing or foreign word list
+    ignoreWordsService.getIgnoreWordsOverlay(wordListId, userId);
+
+    BatchJob job = new BatchJob(userId, wordListId, distinctIds);
+    runningBatches.put(job.id, job);
+    synchronized (activeBatches) {
+      activeBatches.addLast(job);
+    }
+    // One task per essay; each task processes whichever essay is next in turn
+    for (int i = 0; i < job.total; i++) {
+      essayBatchExecutor.execute(this::processNextEssay);
+    }
+
+    log.info("Submitted batch {} with {} essays for user {}", job.id, job.total, userId);
+    return convertToDto(job);
+  }
+
+  /**
+   * Get the progress of a batch of the current user.
+   * 
+   * @param batchId The ID of the batch.
+   * @return The batch progress.
+   */
+  @Override
+  public BatchProgressDto getBatchProgress(String batchId) {
+    BatchJob job = runningBatches.get(batchId);
+    if (job == null) {
+      job = finishedBatches.get(batchId);
+    }
+    if (job == null || !Objects.equals(job.ownerId, securityUtil.getCurrentUserId())) {
+      throw new RuntimeException("Batch not found");
+    }
+    return convertToDto(job);
+  }
+
+  /**
+   * Take the next essay of the batch whose turn it is and process it. The
+   * batch goes back to the end of the turn order while it has essays left.
+   */
+  private void processNextEssay() {
+    BatchJob job;
+    Long essayId;
+    synchronized (activeBatches) {
+      job = activeBatches.pollFirst();
+      if (job == null) {
+        return;
+      }
+      essayId = job.pendingEssayIds.poll();
+      if (!job.pendingEssayIds.isEmpty()) {
+        activeBatches.addLast(job);
+      }
+    }
+
+    try {
+      essayService.processEssay(essayId, job.wordListId);
+      job.completed.incrementAndGet();
+    } catch (RuntimeException e) {
+      log.warn("Essay {} of batch {} failed", essayId, job.id, e);
+      job.failedEssayIds.add(essayId);
+    }
+
+    if (job.isDone()) {
+      finishBatch(job);
+    }
+  }
+
+  /**
+   * Move a batch whose essays are all processed to the history. It is added
+   * to the history before it leaves the running batches, so its progress can
+   * always be found.
+   */
+  private void finishBatch(BatchJob job) {
+    synchronized (job) {
+      if (job.finishedAt != null) {
+        return;
+      }
+      job.finishedAt = LocalDateTime.now();
+    }
+    finishedBatches.put(job.id, job);
+    runningBatches.remove(job.id);
+    log.info("Finished batch {}: {} processed, {} failed", job.id, job.completed.get(),
+        job.failedEssayIds.size());
+  }
+
+  /**
+   * Convert a batch job to its progress DTO.
+   * 
+   * @param job
+   * @return
+   */
+  private BatchProgressDto convertToDto(BatchJob job) {
+    List<Long> failedEssayIds;
+    synchronized (job.failedEssayIds) {
+      failedEssayIds = List.copyOf(job.failedEssayIds);
+    }
+    return BatchProgressDto.builder()
+        .batchId(job.id)
+        .status(job.isDone() ? BatchStatus.COMPLETED : BatchStatus.RUNNING)
+        .totalEssays(job.total)
+        .completedEssays(job.completed.get())
+        .failedEssays(failedEssayIds.size())
+        .failedEssayIds(failedEssayIds)
+        .submittedAt(job.submittedAt)
+        .finishedAt(job.finishedAt)
+        .build();
+  }
+}
@@ -1,14 +1,19 @@
 package com.trinhhoctuan.articlecheck.services.impl;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.trinhhoctuan.articlecheck.dtos.EssayDto;
 import com.trinhhoctuan.articlecheck.dtos.FileUploadResponse;
+import com.trinhhoctuan.articlecheck.enums.FileType;
 import com.trinhhoctuan.articlecheck.mappers.EssayMapper;
 import com.trinhhoctuan.articlecheck.models.Essay;
 import com.trinhhoctuan.articlecheck.models.User;
@@ -16,6 +21,7 @@ import com.trinhhoctuan.articlecheck.models.EditHistory.ChangeType;
 import com.trinhhoctuan.articlecheck.models.Essay.EssayStatus;
 import com.trinhhoctuan.articlecheck.repositories.EssayRepository;
 import com.trinhhoctuan.articlecheck.repositories.UserRepository;
+import com.trinhhoctuan.articlecheck.services.DuplicateDetectionService;
 import com.trinhhoctuan.articlecheck.services.EditHistoryService;
 import com.trinhhoctuan.articlecheck.services.EssayService;
 import com.trinhhoctuan.articlecheck.services.FileProcessingService;
@@ -23,6 +29,7 @@ import com.trinhhoctuan.articlecheck.services.GrammarCheckService;
 import com.trinhhoctuan.articlecheck.services.OpenAIService;
 import com.trinhhoctuan.articlecheck.services.PlagiarismCheckService;
 import com.trinhhoctuan.articlecheck.services.IgnoreWordsService;
+import com.trinhhoctuan.articlecheck.utils.IgnoreWordsOverlay;
 import com.trinhhoctuan.articlecheck.utils.SecurityUtil;
 
 import jakarta.transaction.Transactional;
@@ -42,10 +49,12 @@ public class EssayServiceImpl implements EssayService {
   private final GrammarCheckService grammarCheckService;
   private final PlagiarismCheckService plagiarismCheckService;
   private final EditHistoryService editHistoryService;
+  private final DuplicateDetectionService duplicateDetectionService;
   private final OpenAIService openAIService;
   private final IgnoreWordsService wordListService;
   private final SecurityUtil securityUtil;
   private final EssayMapper essayMapper;
+  private final Duration fileSweepMinAge;
 
   public EssayServiceImpl(
       EssayRepository essayRepository,
@@ -54,20 +63,24 @@ public class EssayServiceImpl implements EssayService {
       GrammarCheckService grammarCheckService,
       PlagiarismCheckService plagiarismCheckService,
       EditHistoryService editHistoryService,
+      DuplicateDetectionService duplicateDetectionService,
       OpenAIService openAIService,
       IgnoreWordsService wordListService,
       SecurityUtil securityUtil,
-      EssayMapper essayMapper) {
+      EssayMapper essayMapper,
+      @Value("${app.file.sweep.min-age-minutes:60}") long fileSweepMinAgeMinutes) {
     this.essayRepository = essayRepository;
     this.userRepository = userRepository;
     this.fileProcessingService = fileProcessingService;
     this.grammarCheckService = grammarCheckService;
     this.plagiarismCheckService = plagiarismCheckService;
     this.editHistoryService = editHistoryService;
+    this.duplicateDetectionService = duplicateDetectionService;
     this.openAIService = openAIService;
     this.wordListService = wordListService;
     this.securityUtil = securityUtil;
     this.essayMapper = essayMapper;
+    this.fileSweepMinAge = Duration.ofMinutes(fileSweepMinAgeMinutes);
   }
 
   /**
@@ -118,34 +131,54 @@ public class EssayServiceImpl implements EssayService {
 
       User user = userRepository.findById(userId).orElseThrow(() -> new IllegalArgumentException("User not found"));
 
-      // Extract File
-      String extractedText = fileProcessingService.extractTextFromFile(file);
-
-      // Save File
-      String fileName = fileProcessingService.saveFileToSystem(file);
+      // Save File, reading the upload once, then extract from the stored file
+      FileType fileType = fileProcessingService.getFileExtension(file.getOriginalFilename());
+      // A file no essay ends up referring to is left to the sweep of unreferenced files
+      FileProcessingService.StoredFile storedFile = fileProcessingService.saveFileToSystem(file);
+      String extractedText = fileProcessingService.extractTextFromFile(storedFile.path(), fileType);
 
       // Save Essay
       Essay essay = Essay.builder()
           .title(title != null ? title : file.getOriginalFilename())
           .originalContent(extractedText)
           .processedContent(extractedText)
-          .fileName(fileName)
-          .fileType(fileProcessingService.getFileExtension(file.getOriginalFilename()))
+          .fileName(storedFile.contentKey())
+          .fileType(fileType)
           .status(EssayStatus.UPLOADED)
           .user(user)
           .build();
 
+      // Flag resubmissions before any checks run
+      Essay duplicateOf = duplicateDetectionService.markDuplicate(essay, userId);
+      boolean exactDuplicate = duplicateDetectionService.isExactDuplicate(essay);
+
       Essay savedEssay = essayRepository.save(essay);
 
       // Record Edit History
       editHistoryService.recordEdit(savedEssay, "", extractedText,
           "Initial file upload", ChangeType.MANUAL_EDIT);
 
+      boolean reused = false;
+      if (exactDuplicate) {
+        // The content is already in the plagiarism reference corpus
+        reused = reusePriorResults(duplicateOf, savedEssay);
+      } else {
+        // Add to the plagiarism reference corpus after commit
+        plagiarismCheckService.scheduleReferenceIndexing(savedEssay.getId(), extractedText);
+      }
+
+      String message = "File uploaded successfully";
+      if (duplicateOf != null) {
+        message = (exactDuplicate ? "Duplicate" : "Near-duplicate") + " of essay " + duplicateOf.getId()
+            + (reused ? ", previous results reused" : "");
+      }
+
       return FileUploadResponse.builder()
           .essayId(savedEssay.getId())
           .fileName(file.getOriginalFilename())
-          .message("File uploaded successfully")
+          .message(message)
           .success(true)
+          .duplicateOfId(duplicateOf != null ? duplicateOf.getId() : null)
           .build();
     } catch (IOException e) {
       log.error("Error processing file: {}", e.getMessage());
@@ -167,7 +200,8 @@ public class EssayServiceImpl implements EssayService {
     Essay essay = essayRepository.findById(essayId)
         .orElseThrow(() -> new RuntimeException("Essay not found"));
 
-    List<String> customWords = wordListService.getIgnoreWordssById(wordListId);
+    IgnoreWordsOverlay ignoreWords = wordListService.getIgnoreWordsOverlay(wordListId,
+        essay.getUser().getId());
 
     try {
       // Update status to processing
@@ -175,18 +209,13 @@ public class EssayServiceImpl implements EssayService {
       essayRepository.save(essay);
 
       // Perform grammar check
-      grammarCheckService.checkGrammar(essay, customWords);
+      grammarCheckService.checkGrammar(essay, ignoreWords);
       essay.setStatus(EssayStatus.GRAMMAR_CHECKED);
       essayRepository.save(essay);
 
-      // Perform plagiarism check
-      // plagiarismCheckService.checkPlagiarism(essay, essay.getOriginalContent());
-      // essay.setStatus(EssayStatus.PLAGIARISM_CHECKED);
-      // essayRepository.save(essay);
-
-      // Mark as completed
-      essay.setStatus(EssayStatus.COMPLETED);
-      essayRepository.save(essay);
+      // Perform plagiarism check in the background within its time budget;
+      // it moves the essay on to PLAGIARISM_CHECKED
+      plagiarismCheckService.schedulePlagiarismCheck(essay.getId());
 
       return essayMapper.convertToDto(essay);
     } catch (Exception e) {
@@ -218,11 +247,13 @@ public class EssayServiceImpl implements EssayService {
    * @param essayId           the ID of the essay
    * @param newContent        the new content for the essay
    * @param changeDescription a description of the change
+   * @param wordListId        the ignore-word list used to re-check the essay,
+   *                          or null for none
    * @return the updated essay DTO
    */
   @Override
   @Transactional
-  public EssayDto updateEssayContent(Long essayId, String newContent, String changeDescription) {
+  public EssayDto updateEssayContent(Long essayId, String newContent, String changeDescription, Long wordListId) {
     Essay essay = essayRepository.findById(essayId)
         .orElseThrow(() -> new RuntimeException("Essay not found"));
 
@@ -236,6 +267,88 @@ public class EssayServiceImpl implements EssayService {
     essay.setProcessedContent(newContent);
     Essay updatedEssay = essayRepository.save(essay);
 
+    // Re-check only the edited paragraphs of an already checked essay
+    if (isGrammarChecked(updatedEssay)) {
+      grammarCheckService.recheckGrammar(updatedEssay, previousContent,
+          wordListService.getIgnoreWordsOverlay(wordListId, updatedEssay.getUser().getId()));
+    }
+
     return essayMapper.convertToDto(updatedEssay);
   }
+
+  /**
+   * Delete the stored upload files no essay refers to: files of uploads
+   * whose text could not be extracted or whose essay was not saved. Files
+   * are shared by the essays with the same content, so they are only deleted
+   * here, once no essay refers to them, and never on the request path.
+   */
+  @Scheduled(initialDelayString = "${app.file.sweep.interval-ms:3600000}",
+      fixedDelayString = "${app.file.sweep.interval-ms:3600000}")
+  public void sweepUnreferencedFiles() {
+    try {
+      int deleted = fileProcessingService.deleteUnreferencedFiles(essayRepository::existsByFileName,
+          fileSweepMinAge);
+      if (deleted > 0) {
+        log.info("Deleted {} unreferenced upload files", deleted);
+      }
+    } catch (IOException | RuntimeException e) {
+      log.error("Error sweeping unreferenced upload files", e);
+    }
+  }
+
+  /**
+   * Copy the results of a checked essay to a new essay with exactly the same
+   * content, skipping its checks. Grammar results are only valid while the
+   * checked essay has not been edited since. Plagiarism results are only
+   * copied from an essay past its plagiarism stage; otherwise the new essay gets its own
+   * plagiarism check.
+   *
+   * @param original the checked essay
+   * @param essay    the new essay
+   * @return true if the results were reused
+   */
+  private boolean reusePriorResults(Essay original, Essay essay) {
+    if (!isGrammarChecked(original)
+        || !Objects.equals(original.getProcessedContent(), original.getOriginalContent())) {
+      return false;
+    }
+
+    grammarCheckService.copyGrammarChecks(original, essay);
+    if (isPlagiarismChecked(original)) {
+      plagiarismCheckService.copyPlagiarismChecks(original, essay);
+      essay.setPlagiarismPartial(original.getPlagiarismPartial());
+      essay.setStatus(EssayStatus.PLAGIARISM_CHECKED);
+      essayRepository.save(essay);
+    } else {
+      essay.setStatus(EssayStatus.GRAMMAR_CHECKED);
+      essayRepository.save(essay);
+      plagiarismCheckService.schedulePlagiarismCheck(essay.getId());
+    }
+    log.info("Reused results of essay {} for duplicate essay {}", original.getId(), essay.getId());
+    return true;
+  }
+
+  /**
+   * Check whether grammar results have been stored for an essay.
+   *
+   * @param essay the essay
+   * @return true if the essay passed the grammar check stage
+   */
+  private boolean isGrammarChecked(Essay essay) {
+    return essay.getStatus() == EssayStatus.GRAMMAR_CHECKED
+        || essay.getStatus() == EssayStatus.PLAGIARISM_CHECKED
+        || essay.getStatus() == EssayStatus.COMPLETED;
+  }
+
+  /**
+   * Check whether plagiarism results have been stored for an essay. Essays
+   * marked COMPLETED were processed before the plagiarism stage existed and
+   * have none.
+   *
+   * @param essay the essay
+   * @return true if the essay passed the plagiarism stage
+   */
+  private boolean isPlagiarismChecked(Essay essay) {
+    return essay.getStatus() == EssayStatus.PLAGIARISM_CHECKED;
+  }
 }
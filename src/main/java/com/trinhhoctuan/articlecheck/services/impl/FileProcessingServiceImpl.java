@@ -2,18 +2,41 @@ package com.trinhhoctuan.articlecheck.services.impl;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
-import org.apache.poi.hwpf.HWPFDocument;
 import org.apache.poi.hwpf.extractor.WordExtractor;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
 import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -21,6 +44,8 @@ import org.springframework.web.multipart.MultipartFile;
 import com.trinhhoctuan.articlecheck.constants.CommonConstants;
 import com.trinhhoctuan.articlecheck.enums.FileType;
 import com.trinhhoctuan.articlecheck.services.FileProcessingService;
+import com.trinhhoctuan.articlecheck.utils.DocxTextExtractor;
+import com.trinhhoctuan.articlecheck.utils.HashUtil;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -32,41 +57,52 @@ import lombok.extern.slf4j.Slf4j;
 @Service
 @Slf4j
 public class FileProcessingServiceImpl implements FileProcessingService {
+  // Uploads are copied through one buffer of this size, whatever their size
+  private static final int COPY_BUFFER_BYTES = 64 * 1024;
+  private static final Pattern STORED_FILE_NAME = Pattern.compile("[0-9a-f]{64}(\\.[a-z]+)?");
+
   private String uploadDir;
+  private final ExecutorService pdfExtractionExecutor;
+  private final int pdfWorkers;
+  private final int parallelMinPages;
+  private final int minPagesPerRange;
 
   public FileProcessingServiceImpl(
-      @Value("${file.upload.dir}") String uploadDir) {
+      @Value("${app.file.upload-dir:./uploads}") String uploadDir,
+      @Qualifier("pdfExtractionExecutor") ExecutorService pdfExtractionExecutor,
+      @Value("${app.file.pdf.parallelism:0}") int pdfParallelism,
+      @Value("${app.file.pdf.parallel-min-pages:40}") int parallelMinPages,
+      @Value("${app.file.pdf.min-pages-per-range:10}") int minPagesPerRange) {
     this.uploadDir = uploadDir;
+    this.pdfExtractionExecutor = pdfExtractionExecutor;
+    this.pdfWorkers = pdfParallelism > 0 ? pdfParallelism : Runtime.getRuntime().availableProcessors();
+    this.parallelMinPages = parallelMinPages;
+    this.minPagesPerRange = Math.max(1, minPagesPerRange);
   }
 
   // ========================== Core operations ========================
 
   /**
-   * Extract text content from the given file.
+   * Extract text content from a saved file.
    * 
-   * @param file The file to extract text from.
+   * @param file     The saved file to extract text from.
+   * @param fileType The type of the file.
    * @return The extracted text content.
    */
   @Override
-  public String extractTextFromFile(MultipartFile file) throws IOException {
-    String fileName = file.getOriginalFilename();
-    String contentType = file.getContentType();
-    InputStream inputStream = file.getInputStream();
-
-    log.info("Processing file: {} with content type: {}", fileName, contentType);
+  public String extractTextFromFile(Path file, FileType fileType) throws IOException {
+    log.info("Processing file: {} of type: {}", file.getFileName(), fileType);
 
-    if (fileName == null) {
-      throw new IllegalArgumentException("File name can't be null");
+    if (fileType == null) {
+      throw new IllegalArgumentException("File type can't be null");
     }
 
-    FileType extension = getFileExtension(fileName);
-
-    return switch (extension) {
-      case TXT -> extractTextFromTxt(inputStream);
-      case PDF -> extractTextFromPdf(inputStream);
-      case DOC -> extractTextFromDoc(inputStream);
-      case DOCX -> extractTextFromDocx(inputStream);
-      default -> throw new UnsupportedOperationException("Unsupported file type: " + extension);
+    return switch (fileType) {
+      case TXT -> extractTextFromTxt(file);
+      case PDF -> extractTextFromPdf(file);
+      case DOC -> extractTextFromDoc(file);
+      case DOCX -> extractTextFromDocx(file);
+      default -> throw new UnsupportedOperationException("Unsupported file type: " + fileType);
     };
   }
 
@@ -90,13 +126,22 @@ public class FileProcessingServiceImpl implements FileProcessingService {
   // ========================== Utils operations ========================
 
   /**
-   * Save a file to the system.
+   * Save a file to the system by the SHA-256 of its content. The upload
+   * Spring has already spooled is hashed first, through a fixed-size buffer,
+   * so a resubmission costs one read of the upload and no writes: it refers
+   * to the stored file, whose modification time is refreshed to keep it from
+   * the sweep of unreferenced files until its essay is saved.
+   * 
+   * New content is transferred to a temporary file, which is a rename of the
+   * spooled upload when both are on the same file system and a copy
+   * otherwise, and then linked to its content key.
    *
    * @param file the file to save
-   * @return the filename of the saved file
+   * @return the stored file
    * @throws IOException if an error occurs while saving the file
    */
-  public String saveFileToSystem(MultipartFile file) throws IOException {
+  @Override
+  public StoredFile saveFileToSystem(MultipartFile file) throws IOException {
     // Create upload directory if it doesn't exist
     Path uploadPath = Paths.get(uploadDir);
 
@@ -104,17 +149,96 @@ public class FileProcessingServiceImpl implements FileProcessingService {
       Files.createDirectories(uploadPath);
     }
 
-    // Generate unique filename
-    String originalFileName = file.getOriginalFilename();
-    String fileName = System.currentTimeMillis() + "_" + originalFileName;
-    Path filePath = uploadPath.resolve(fileName);
+    // Hash the spooled upload before anything is written
+    MessageDigest digest = HashUtil.newSha256();
+    byte[] buffer = new byte[COPY_BUFFER_BYTES];
+    try (InputStream inputStream = file.getInputStream()) {
+      int read;
+      while ((read = inputStream.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+    }
 
-    // Save file
-    Files.copy(file.getInputStream(), filePath);
+    FileType fileType = getFileExtension(file.getOriginalFilename());
+    String contentKey = HexFormat.of().formatHex(digest.digest())
+        + (fileType != null ? "." + fileType.getName() : "");
+    Path filePath = getStoredFilePath(contentKey);
+
+    if (refreshStoredFile(filePath)) {
+      log.info("Upload {} is already stored as {}", file.getOriginalFilename(), contentKey);
+      return new StoredFile(contentKey, filePath, false);
+    }
+
+    Files.createDirectories(filePath.getParent());
+    Path tempFile = Files.createTempFile(uploadPath, "upload-", ".tmp");
+    try {
+      file.transferTo(tempFile);
+      // A hard link fails atomically if the file exists, where rename would replace it
+      try {
+        Files.createLink(filePath, tempFile);
+      } catch (UnsupportedOperationException e) {
+        Files.move(tempFile, filePath);
+      }
+    } catch (FileAlreadyExistsException e) {
+      // Stored by a concurrent upload of the same content
+      refreshStoredFile(filePath);
+      return new StoredFile(contentKey, filePath, false);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
 
     log.info("Saved file: {}", filePath.toAbsolutePath());
 
-    return fileName;
+    return new StoredFile(contentKey, filePath, true);
+  }
+
+  /**
+   * Delete the stored files no essay refers to. Files modified within the
+   * minimum age are kept, since the essay of a recent upload may not be
+   * saved yet, as are the temporary files of uploads in progress.
+   *
+   * @param isReferenced Whether an essay refers to a content key.
+   * @param minAge
+   * @return The number of deleted files.
+   * @throws IOException
+   */
+  @Override
+  public int deleteUnreferencedFiles(Predicate<String> isReferenced, Duration minAge) throws IOException {
+    Path uploadPath = Paths.get(uploadDir);
+    if (!Files.isDirectory(uploadPath)) {
+      return 0;
+    }
+    int deleted = 0;
+    try (Stream<Path> files = Files.walk(uploadPath, 2)) {
+      for (Path path : (Iterable<Path>) files::iterator) {
+        String contentKey = path.getFileName().toString();
+        if (!Files.isRegularFile(path) || !STORED_FILE_NAME.matcher(contentKey).matches()
+            || isRecent(path, minAge) || isReferenced.test(contentKey)) {
+          continue;
+        }
+        // Checked again, in case an upload of the same content refreshed it meanwhile
+        if (!isRecent(path, minAge) && Files.deleteIfExists(path)) {
+          log.info("Deleted unreferenced file {}", contentKey);
+          deleted++;
+        }
+      }
+    }
+    return deleted;
+  }
+
+  /**
+   * Get the path of a stored file from its content key. Files are spread
+   * over subdirectories named by the first two hex digits of their key.
+   *
+   * @param contentKey
+   * @return
+   */
+  @Override
+  public Path getStoredFilePath(String contentKey) {
+    if (!STORED_FILE_NAME.matcher(contentKey).matches()) {
+      throw new IllegalArgumentException("Invalid content key: " + contentKey);
+    }
+    return Paths.get(uploadDir, contentKey.substring(0, 2), contentKey);
   }
 
   /**
@@ -132,55 +256,157 @@ public class FileProcessingServiceImpl implements FileProcessingService {
   }
 
   /**
-   * Extract text content from a TXT file.
+   * Extract text content from a TXT file, decoding it as it is read.
+   * Malformed UTF-8 is replaced rather than rejected.
    * 
-   * @param inputStream The input stream of the TXT file.
+   * @param file The TXT file.
    * @return The extracted text content.
    * @throws IOException If an I/O error occurs.
    */
-  private String extractTextFromTxt(InputStream inputStream) throws IOException {
-    return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+  private String extractTextFromTxt(Path file) throws IOException {
+    try (Reader reader = new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8)) {
+      StringWriter text = new StringWriter();
+      reader.transferTo(text);
+      return text.toString();
+    }
   }
 
   /**
-   * Extract text content from a DOC file.
+   * Extract text content from a PDF file, read from disk on demand instead
+   * of being loaded into memory. Documents of at least parallelMinPages pages
+   * are split into one page range per worker, extracted concurrently and
+   * concatenated in page order. A PDDocument is not thread-safe, so every
+   * other range opens its own; the first is extracted here from the document
+   * already open.
    * 
-   * @param inputStream The input stream of the DOC file.
+   * @param file The PDF file.
    * @return The extracted text content.
    * @throws IOException If an I/O error occurs.
    */
-  private String extractTextFromPdf(InputStream inputStream) throws IOException {
-    try (PDDocument document = Loader.loadPDF(inputStream.readAllBytes())) {
+  private String extractTextFromPdf(Path file) throws IOException {
+    try (PDDocument document = Loader.loadPDF(new RandomAccessReadBufferedFile(file.toFile()))) {
+      int pageCount = document.getNumberOfPages();
+      int rangeCount = Math.min(pdfWorkers, pageCount / minPagesPerRange);
+      if (parallelMinPages <= 0 || pageCount < parallelMinPages || rangeCount <= 1) {
+        PDFTextStripper pdfStripper = new PDFTextStripper();
+        return pdfStripper.getText(document);
+      }
+
+      int pagesPerRange = (pageCount + rangeCount - 1) / rangeCount;
+      List<Future<String>> ranges = new ArrayList<>();
+      for (int startPage = pagesPerRange + 1; startPage <= pageCount; startPage += pagesPerRange) {
+        int first = startPage;
+        int last = Math.min(startPage + pagesPerRange - 1, pageCount);
+        ranges.add(pdfExtractionExecutor.submit(() -> extractTextFromPdfPages(file, first, last)));
+      }
+      log.debug("Extracting {} pages of {} in {} ranges", pageCount, file.getFileName(), ranges.size() + 1);
+
+      try {
+        PDFTextStripper pdfStripper = new PDFTextStripper();
+        pdfStripper.setEndPage(pagesPerRange);
+        StringBuilder text = new StringBuilder(pdfStripper.getText(document));
+        for (Future<String> range : ranges) {
+          text.append(range.get());
+        }
+        return text.toString();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while extracting " + file.getFileName(), e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof IOException ioException) {
+          throw ioException;
+        }
+        throw new RuntimeException("Error extracting " + file.getFileName(), e.getCause());
+      } finally {
+        ranges.forEach(range -> range.cancel(true));
+      }
+    }
+  }
+
+  /**
+   * Extract the text of a range of pages of a PDF file.
+   * 
+   * @param file      The PDF file.
+   * @param startPage The first page, from 1.
+   * @param endPage   The last page, inclusive.
+   * @return The extracted text content.
+   * @throws IOException If an I/O error occurs.
+   */
+  private static String extractTextFromPdfPages(Path file, int startPage, int endPage) throws IOException {
+    try (PDDocument document = Loader.loadPDF(new RandomAccessReadBufferedFile(file.toFile()))) {
       PDFTextStripper pdfStripper = new PDFTextStripper();
+      pdfStripper.setStartPage(startPage);
+      pdfStripper.setEndPage(endPage);
       return pdfStripper.getText(document);
     }
   }
 
   /**
-   * Extract text content from a PDF file.
+   * Extract text content from a DOC file. The OLE2 file system is read from
+   * the file as needed rather than copied into memory first.
    * 
-   * @param inputStream The input stream of the PDF file.
+   * @param file The DOC file.
    * @return The extracted text content.
    * @throws IOException If an I/O error occurs.
    */
-  private String extractTextFromDoc(InputStream inputStream) throws IOException {
-    try (HWPFDocument document = new HWPFDocument(inputStream);
-        WordExtractor extractor = new WordExtractor(document)) {
+  private String extractTextFromDoc(Path file) throws IOException {
+    try (POIFSFileSystem fileSystem = new POIFSFileSystem(file.toFile(), true);
+        WordExtractor extractor = new WordExtractor(fileSystem)) {
       return extractor.getText();
     }
   }
 
   /**
-   * Extract text content from a DOCX file.
+   * Extract text content from a DOCX file by streaming its main document
+   * part. Documents the streaming extractor cannot handle are extracted
+   * through the XWPF document model instead.
    * 
-   * @param inputStream The input stream of the DOCX file.
+   * @param file The DOCX file.
    * @return The extracted text content.
    * @throws IOException If an I/O error occurs.
    */
-  private String extractTextFromDocx(InputStream inputStream) throws IOException {
-    try (XWPFDocument document = new XWPFDocument(inputStream);
-        XWPFWordExtractor extractor = new XWPFWordExtractor(document)) {
+  private String extractTextFromDocx(Path file) throws IOException {
+    try {
+      return DocxTextExtractor.extract(file);
+    } catch (DocxTextExtractor.UnsupportedDocumentException e) {
+      log.info("Cannot stream {}, using the document model: {}", file.getFileName(), e.getMessage());
+    }
+
+    OPCPackage opcPackage;
+    try {
+      opcPackage = OPCPackage.open(file.toFile(), PackageAccess.READ);
+    } catch (InvalidFormatException e) {
+      throw new IOException("Invalid DOCX file: " + file.getFileName(), e);
+    }
+    try {
+      XWPFWordExtractor extractor = new XWPFWordExtractor(new XWPFDocument(opcPackage));
       return extractor.getText();
+    } finally {
+      // Read-only packages are discarded, not saved
+      opcPackage.revert();
+    }
+  }
+
+  /**
+   * Refresh the modification time of a stored file, if it exists.
+   *
+   * @param path
+   * @return true if the file is stored
+   */
+  private boolean refreshStoredFile(Path path) throws IOException {
+    try {
+      Files.setLastModifiedTime(path, FileTime.from(Instant.now()));
+      return true;
+    } catch (NoSuchFileException e) {
+      return false;
+    }
+  }
+
+  private boolean isRecent(Path path, Duration minAge) throws IOException {
+    try {
+      return Files.getLastModifiedTime(path).toInstant().isAfter(Instant.now().minus(minAge));
+    } catch (NoSuchFileException e) {
+      return true; // Already gone
     }
   }
 }
@@ -1,23 +1,40 @@
 package com.trinhhoctuan.articlecheck.services.impl;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
-import org.languagetool.JLanguageTool;
-import org.languagetool.rules.RuleMatch;
-import org.languagetool.rules.spelling.hunspell.HunspellRule;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.trinhhoctuan.articlecheck.config.GrammarCheckEngine;
 import com.trinhhoctuan.articlecheck.dtos.GrammarCheckDto;
+import com.trinhhoctuan.articlecheck.dtos.GrammarMatch;
 import com.trinhhoctuan.articlecheck.mappers.GrammarCheckMapper;
 import com.trinhhoctuan.articlecheck.models.Essay;
+import com.trinhhoctuan.articlecheck.models.Essay.EssayStatus;
 import com.trinhhoctuan.articlecheck.models.GrammarCheck;
-import com.trinhhoctuan.articlecheck.models.GrammarCheck.ErrorSeverity;
+import com.trinhhoctuan.articlecheck.repositories.EssayRepository;
 import com.trinhhoctuan.articlecheck.repositories.GrammarCheckRepository;
 import com.trinhhoctuan.articlecheck.services.GrammarCheckService;
+import com.trinhhoctuan.articlecheck.services.IgnoreWordsService;
+import com.trinhhoctuan.articlecheck.utils.HashUtil;
+import com.trinhhoctuan.articlecheck.utils.IgnoreWordsOverlay;
+import com.trinhhoctuan.articlecheck.utils.TextSegmenter;
+import com.trinhhoctuan.articlecheck.utils.TextSpan;
 
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 /**
  * Implementation of the GrammarCheckService interface.
@@ -28,37 +45,47 @@ import lombok.extern.slf4j.Slf4j;
 public class GrammarCheckServiceImpl implements GrammarCheckService {
   private final GrammarCheckRepository grammarCheckRepository;
   private final GrammarCheckMapper grammarCheckMapper;
-  private final JLanguageTool languageTool;
+  private final GrammarCheckEngine grammarCheckEngine;
+  private final EssayRepository essayRepository;
+  private final IgnoreWordsService ignoreWordsService;
+  private final int streamConcurrency;
+  private final int streamBatchSize;
+  private final Duration streamFlushInterval;
 
   public GrammarCheckServiceImpl(
       GrammarCheckRepository grammarCheckRepository,
       GrammarCheckMapper grammarCheckMapper,
-      JLanguageTool languageTool) {
+      GrammarCheckEngine grammarCheckEngine,
+      EssayRepository essayRepository,
+      IgnoreWordsService ignoreWordsService,
+      @Value("${app.grammar.pool.size:0}") int poolSize,
+      @Value("${app.grammar.stream.batch-size:50}") int streamBatchSize,
+      @Value("${app.grammar.stream.flush-interval-ms:200}") long streamFlushIntervalMs) {
     this.grammarCheckRepository = grammarCheckRepository;
     this.grammarCheckMapper = grammarCheckMapper;
-    this.languageTool = languageTool;
+    this.grammarCheckEngine = grammarCheckEngine;
+    this.essayRepository = essayRepository;
+    this.ignoreWordsService = ignoreWordsService;
+    this.streamConcurrency = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+    this.streamBatchSize = streamBatchSize;
+    this.streamFlushInterval = Duration.ofMillis(streamFlushIntervalMs);
   }
 
   /**
    * Check the grammar of the given text.
    * 
-   * @param essay The essay entity.
-   * @param text  The text to check.
+   * @param essay       The essay entity.
+   * @param ignoreWords The words not to report as misspelled.
    * @return A list of grammar check results.
    */
   @Override
-  public List<GrammarCheckDto> checkGrammar(Essay essay, List<String> customWords) {
+  public List<GrammarCheckDto> checkGrammar(Essay essay, IgnoreWordsOverlay ignoreWords) {
     try {
-      // Add custom words to the Hunspell dictionary
-      addCustomWordsToDictionary(customWords);
+      String text = getCurrentContent(essay);
 
-      // Check the text for grammar issues
-      List<RuleMatch> matches = languageTool.check(essay.getOriginalContent());
-
-      // Convert RuleMatches to GrammarCheck entities
-      List<GrammarCheck> grammarChecks = matches.stream()
-          .map(match -> convertToGrammarCheck(match, essay))
-          .collect(Collectors.toList());
+      // Check the text for grammar issues and convert them to GrammarCheck entities
+      List<GrammarCheck> grammarChecks = convertToGrammarChecks(grammarCheckEngine.check(text, ignoreWords),
+          essay, text);
 
       // Save grammar checks to the database
       grammarCheckRepository.saveAll(grammarChecks);
@@ -73,6 +100,187 @@ public class GrammarCheckServiceImpl implements GrammarCheckService {
     }
   }
 
+  /**
+   * Re-check only the paragraphs that changed since the previous content.
+   * Paragraphs are matched by content hash; results of unchanged paragraphs
+   * are kept and shifted to their new offsets.
+   * 
+   * @param essay           The essay entity, already holding the new content.
+   * @param previousContent The content the stored grammar checks refer to.
+   * @param ignoreWords     The words not to report as misspelled.
+   * @return A list of grammar check results for the new content.
+   */
+  @Override
+  public List<GrammarCheckDto> recheckGrammar(Essay essay, String previousContent, IgnoreWordsOverlay ignoreWords) {
+    try {
+      String text = getCurrentContent(essay);
+
+      // Index previous paragraphs by hash and attach their stored checks
+      List<TextSpan> previousParagraphs = TextSegmenter.paragraphs(previousContent);
+      Map<Long, Deque<TextSpan>> previousByHash = new HashMap<>();
+      for (TextSpan paragraph : previousParagraphs) {
+        previousByHash.computeIfAbsent(HashUtil.hash64(previousContent, paragraph.start(), paragraph.end()),
+            hash -> new ArrayDeque<>()).add(paragraph);
+      }
+      Map<TextSpan, List<GrammarCheck>> checksByParagraph = new HashMap<>();
+      List<GrammarCheck> staleChecks = new ArrayList<>();
+      for (GrammarCheck check : grammarCheckRepository.findByEssayId(essay.getId())) {
+        TextSpan paragraph = findParagraph(previousParagraphs, check.getStartPosition());
+        if (paragraph == null) {
+          staleChecks.add(check);
+        } else {
+          checksByParagraph.computeIfAbsent(paragraph, key -> new ArrayList<>()).add(check);
+        }
+      }
+
+      // Keep checks of unchanged paragraphs, collect the changed ones
+      List<GrammarCheck> grammarChecks = new ArrayList<>();
+      List<TextSpan> changedParagraphs = new ArrayList<>();
+      int reused = 0;
+      for (TextSpan paragraph : TextSegmenter.paragraphs(text)) {
+        TextSpan previous = takeUnchanged(previousByHash, previousContent, text, paragraph);
+        if (previous != null) {
+          int shift = paragraph.start() - previous.start();
+          for (GrammarCheck check : checksByParagraph.getOrDefault(previous, List.of())) {
+            check.setStartPosition(check.getStartPosition() + shift);
+            check.setEndPosition(check.getEndPosition() + shift);
+            grammarChecks.add(check);
+          }
+          checksByParagraph.remove(previous);
+          reused++;
+        } else {
+          changedParagraphs.add(paragraph);
+        }
+      }
+      checksByParagraph.values().forEach(staleChecks::addAll);
+      grammarChecks.addAll(convertToGrammarChecks(grammarCheckEngine.check(text, changedParagraphs, ignoreWords),
+          essay, text));
+
+      log.info("Incremental grammar check for essay {}: {} paragraphs reused, {} re-checked",
+          essay.getId(), reused, changedParagraphs.size());
+
+      grammarCheckRepository.deleteAll(staleChecks);
+      grammarCheckRepository.saveAll(grammarChecks);
+
+      return grammarChecks.stream()
+          .sorted(Comparator.comparing(GrammarCheck::getStartPosition))
+          .map(grammarCheckMapper::convertToDto)
+          .collect(Collectors.toList());
+    } catch (IOException e) {
+      log.error("Error re-checking grammar for essay {}", essay.getId(), e);
+      throw new RuntimeException("Grammar check failed", e);
+    }
+  }
+
+  /**
+   * Check the grammar of an essay paragraph by paragraph. Up to one paragraph
+   * per pooled LanguageTool instance is checked at a time, results keep text
+   * order, and they are saved in batches of at most the batch size or flush
+   * interval before being emitted with their IDs.
+   *
+   * The new results are saved next to the stored ones, which are only
+   * deleted once the stream completes. A stream that fails or is cancelled
+   * deletes what it saved instead, so the essay keeps its previous results
+   * and status.
+   * 
+   * @param essayId    The ID of the essay.
+   * @param wordListId The ID of the ignore word list, or null.
+   * @return A stream of grammar check results.
+   */
+  @Override
+  public Flux<GrammarCheckDto> streamGrammarChecks(Long essayId, Long wordListId) {
+    return Flux.defer(() -> {
+      Essay essay = essayRepository.findById(essayId)
+          .orElseThrow(() -> new RuntimeException("Essay not found"));
+      IgnoreWordsOverlay ignoreWords = ignoreWordsService.getIgnoreWordsOverlay(wordListId,
+          essay.getUser().getId());
+      String text = getCurrentContent(essay);
+
+      EssayStatus previousStatus = essay.getStatus();
+      List<GrammarCheck> previousChecks = grammarCheckRepository.findByEssayId(essayId);
+      List<GrammarCheck> savedChecks = new ArrayList<>();
+      AtomicBoolean rolledBack = new AtomicBoolean();
+      essay.setStatus(EssayStatus.PROCESSING);
+      essayRepository.save(essay);
+
+      // Batches and the rollback take the lock, so a batch still being saved
+      // when the stream is cancelled is deleted too
+      Runnable rollback = () -> {
+        synchronized (savedChecks) {
+          if (rolledBack.getAndSet(true)) {
+            return;
+          }
+          grammarCheckRepository.deleteAll(savedChecks);
+          essay.setStatus(previousStatus);
+          essayRepository.save(essay);
+        }
+      };
+
+      // Paragraph checks run on bounded-elastic threads rather than the grammar
+      // workers, since long paragraphs are themselves sharded onto the workers
+      return Flux.fromIterable(TextSegmenter.paragraphs(text))
+          .flatMapSequential(paragraph -> Mono.fromCallable(() -> convertToGrammarChecks(
+              grammarCheckEngine.check(text, List.of(paragraph), ignoreWords), essay, text))
+              .subscribeOn(Schedulers.boundedElastic()), streamConcurrency)
+          .flatMapIterable(grammarChecks -> grammarChecks)
+          .bufferTimeout(streamBatchSize, streamFlushInterval)
+          .concatMap(batch -> Mono.fromCallable(() -> {
+            synchronized (savedChecks) {
+              if (rolledBack.get()) {
+                return List.<GrammarCheck>of();
+              }
+              List<GrammarCheck> saved = grammarCheckRepository.saveAll(batch);
+              savedChecks.addAll(saved);
+              return saved;
+            }
+          }).subscribeOn(Schedulers.boundedElastic()))
+          .flatMapIterable(saved -> saved)
+          .map(grammarCheckMapper::convertToDto)
+          // Swap the new results in: the status first, so a failure leaves the previous results
+          .concatWith(Mono.<GrammarCheckDto>fromRunnable(() -> {
+            essay.setStatus(isPastGrammarStage(previousStatus) ? previousStatus : EssayStatus.GRAMMAR_CHECKED);
+            essayRepository.save(essay);
+            grammarCheckRepository.deleteAll(previousChecks);
+          }).subscribeOn(Schedulers.boundedElastic()))
+          .doOnError(e -> {
+            log.error("Error streaming grammar checks for essay {}", essayId, e);
+            Schedulers.boundedElastic().schedule(rollback);
+          })
+          .doOnCancel(() -> Schedulers.boundedElastic().schedule(rollback));
+    }).subscribeOn(Schedulers.boundedElastic());
+  }
+
+  /**
+   * Copy the stored grammar checks of an essay to another essay with the
+   * same content.
+   * 
+   * @param source The essay the checks were stored for.
+   * @param target The essay to copy them to.
+   * @return The copied grammar checks.
+   */
+  @Override
+  public List<GrammarCheckDto> copyGrammarChecks(Essay source, Essay target) {
+    List<GrammarCheck> copies = grammarCheckRepository.findByEssayId(source.getId())
+        .stream()
+        .<GrammarCheck>map(grammarCheck -> GrammarCheck.builder()
+            .essay(target)
+            .startPosition(grammarCheck.getStartPosition())
+            .endPosition(grammarCheck.getEndPosition())
+            .errorText(grammarCheck.getErrorText())
+            .ruleId(grammarCheck.getRuleId())
+            .message(grammarCheck.getMessage())
+            .suggestedReplacement(grammarCheck.getSuggestedReplacement())
+            .severity(grammarCheck.getSeverity())
+            .isFixed(false)
+            .build())
+        .toList();
+
+    return grammarCheckRepository.saveAll(copies)
+        .stream()
+        .map(grammarCheckMapper::convertToDto)
+        .collect(Collectors.toList());
+  }
+
   /**
    * Get all grammar checks for a specific essay.
    * 
@@ -100,50 +308,109 @@ public class GrammarCheckServiceImpl implements GrammarCheckService {
   }
 
   /**
-   * Convert a RuleMatch to a GrammarCheck entity.
+   * Check whether an essay has passed the grammar check stage, so a new
+   * grammar check does not move it back.
    * 
-   * @param match
-   * @param essay
+   * @param status
    * @return
    */
-  private GrammarCheck convertToGrammarCheck(RuleMatch match, Essay essay) {
-    return GrammarCheck.builder()
-        .essay(essay)
-        .startPosition(match.getFromPos())
-        .endPosition(match.getToPos())
-        .errorText(essay.getOriginalContent().substring(match.getFromPos(), match.getToPos()))
-        .ruleId(match.getRule().getId())
-        .message(match.getMessage())
-        .suggestedReplacement(
-            match.getSuggestedReplacements().isEmpty() ? null : String.join(", ", match.getSuggestedReplacements()))
-        .severity(mapSeverity(match.getRule().getCategory().getName()))
-        .isFixed(false)
-        .build();
+  private boolean isPastGrammarStage(EssayStatus status) {
+    return status == EssayStatus.PLAGIARISM_CHECKED || status == EssayStatus.COMPLETED;
   }
 
   /**
-   * Map a category name to an error severity level.
+   * Get the content grammar checks refer to: the latest edited content, or
+   * the original content if the essay was never edited.
    * 
-   * @param categoryName
+   * @param essay
    * @return
    */
-  private ErrorSeverity mapSeverity(String categoryName) {
-    if (categoryName.contains("Grammar") || categoryName.contains("Punctuation")) {
-      return ErrorSeverity.HIGH;
-    } else if (categoryName.contains("Style")) {
-      return ErrorSeverity.MEDIUM;
-    } else {
-      return ErrorSeverity.LOW;
+  private String getCurrentContent(Essay essay) {
+    return essay.getProcessedContent() != null ? essay.getProcessedContent() : essay.getOriginalContent();
+  }
+
+  /**
+   * Find the paragraph containing the given position.
+   * 
+   * @param paragraphs Paragraphs in text order.
+   * @param position
+   * @return The paragraph, or null if the position lies outside all of them.
+   */
+  private TextSpan findParagraph(List<TextSpan> paragraphs, int position) {
+    int low = 0;
+    int high = paragraphs.size() - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      TextSpan paragraph = paragraphs.get(mid);
+      if (position < paragraph.start()) {
+        high = mid - 1;
+      } else if (position >= paragraph.end()) {
+        low = mid + 1;
+      } else {
+        return paragraph;
+      }
     }
+    return null;
   }
 
-  private void addCustomWordsToDictionary(List<String> customWords) {
-    // Add custom words to the Hunspell dictionary
-    languageTool.getAllActiveRules().stream()
-        .filter(rule -> rule instanceof HunspellRule)
-        .map(rule -> (HunspellRule) rule)
-        .forEach(hunspellRule -> {
-          hunspellRule.addIgnoreTokens(customWords);
-        });
+  /**
+   * Take the first unused previous paragraph with the same content.
+   * 
+   * @param previousByHash  Unused previous paragraphs by content hash.
+   * @param previousContent
+   * @param text
+   * @param paragraph       A paragraph of the new text.
+   * @return The matching previous paragraph, or null if the paragraph changed.
+   */
+  private TextSpan takeUnchanged(Map<Long, Deque<TextSpan>> previousByHash, String previousContent, String text,
+      TextSpan paragraph) {
+    Deque<TextSpan> candidates = previousByHash.get(HashUtil.hash64(text, paragraph.start(), paragraph.end()));
+    if (candidates == null) {
+      return null;
+    }
+    for (TextSpan candidate : candidates) {
+      if (previousContent.regionMatches(candidate.start(), text, paragraph.start(), paragraph.length())
+          && candidate.length() == paragraph.length()) {
+        candidates.remove(candidate);
+        return candidate;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Convert GrammarMatches to GrammarCheck entities.
+   * 
+   * @param matches
+   * @param essay
+   * @param text    The checked text the match positions refer to.
+   * @return
+   */
+  private List<GrammarCheck> convertToGrammarChecks(List<GrammarMatch> matches, Essay essay, String text) {
+    return matches.stream()
+        .map(match -> convertToGrammarCheck(match, essay, text))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Convert a GrammarMatch to a GrammarCheck entity.
+   * 
+   * @param match
+   * @param essay
+   * @param text  The checked text the match positions refer to.
+   * @return
+   */
+  static GrammarCheck convertToGrammarCheck(GrammarMatch match, Essay essay, String text) {
+    return GrammarCheck.builder()
+        .essay(essay)
+        .startPosition(match.fromPos())
+        .endPosition(match.toPos())
+        .errorText(text.substring(match.fromPos(), match.toPos()))
+        .ruleId(match.ruleId())
+        .message(match.message())
+        .suggestedReplacement(match.suggestedReplacement())
+        .severity(match.severity())
+        .isFixed(false)
+        .build();
   }
 }
@@ -2,6 +2,7 @@ package com.trinhhoctuan.articlecheck.services.impl;
 
 import java.util.List;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.trinhhoctuan.articlecheck.dtos.IgnoreWordsDto;
@@ -11,6 +12,8 @@ import com.trinhhoctuan.articlecheck.models.IgnoreWords;
 import com.trinhhoctuan.articlecheck.repositories.UserRepository;
 import com.trinhhoctuan.articlecheck.repositories.IgnoreWordsRepository;
 import com.trinhhoctuan.articlecheck.services.IgnoreWordsService;
+import com.trinhhoctuan.articlecheck.utils.BoundedCache;
+import com.trinhhoctuan.articlecheck.utils.IgnoreWordsOverlay;
 import com.trinhhoctuan.articlecheck.utils.SecurityUtil;
 
 /**
@@ -23,16 +26,31 @@ public class IgnoreWordsServiceImpl implements IgnoreWordsService {
   private final UserRepository userRepository;
   private final SecurityUtil securityUtil;
   private final IgnoreWordsMapper wordListMapper;
+  private final BoundedCache<Long, CachedWordList> overlayCache;
+  private final long overlayTtlMillis;
+
+  /**
+   * A word list as looked up for checks: its access rules and compiled
+   * overlay.
+   *
+   * @param loadedAt When it was read from the database, in epoch millis.
+   */
+  private record CachedWordList(Long ownerId, boolean isPublic, IgnoreWordsOverlay overlay, long loadedAt) {
+  }
 
   public IgnoreWordsServiceImpl(
       IgnoreWordsRepository wordListRepository,
       UserRepository userRepository,
       SecurityUtil securityUtil,
-      IgnoreWordsMapper wordListMapper) {
+      IgnoreWordsMapper wordListMapper,
+      @Value("${app.grammar.ignore-words.cache-size:1000}") int overlayCacheSize,
+      @Value("${app.grammar.ignore-words.cache-ttl-seconds:60}") long overlayTtlSeconds) {
     this.wordListRepository = wordListRepository;
     this.userRepository = userRepository;
     this.securityUtil = securityUtil;
     this.wordListMapper = wordListMapper;
+    this.overlayCache = new BoundedCache<>(overlayCacheSize);
+    this.overlayTtlMillis = overlayTtlSeconds * 1000;
   }
 
   /**
@@ -78,6 +96,40 @@ public class IgnoreWordsServiceImpl implements IgnoreWordsService {
     return List.of(words.getWords().split(","));
   }
 
+  /**
+   * Get the compiled ignore-word overlay of a word list for a check run on
+   * behalf of a user, who must own the list or the list must be public.
+   * Lookups are cached by list ID, so repeated checks with the same list
+   * neither query the database nor compile the list again. Changes made
+   * through this service evict the entry at once; changes made on other
+   * nodes are picked up when it expires.
+   * 
+   * @param wordListId The ID of the word list, or null for no ignored words.
+   * @param userId     The ID of the user the check runs for.
+   * @return The immutable overlay for the word list.
+   */
+  @Override
+  public IgnoreWordsOverlay getIgnoreWordsOverlay(Long wordListId, Long userId) {
+    if (wordListId == null) {
+      return IgnoreWordsOverlay.EMPTY;
+    }
+
+    CachedWordList wordList = overlayCache.get(wordListId);
+    if (wordList == null || System.currentTimeMillis() - wordList.loadedAt() > overlayTtlMillis) {
+      IgnoreWords words = wordListRepository.findById(wordListId)
+          .orElseThrow(() -> new IllegalArgumentException("Word list not found"));
+      wordList = new CachedWordList(words.getUser().getId(), words.isPublic(),
+          IgnoreWordsOverlay.of(List.of(words.getWords().split(","))), System.currentTimeMillis());
+      overlayCache.put(wordListId, wordList);
+    }
+
+    // Another user's private list is reported as missing, not as forbidden
+    if (!wordList.isPublic() && !wordList.ownerId().equals(userId)) {
+      throw new IllegalArgumentException("Word list not found");
+    }
+    return wordList.overlay();
+  }
+
   /**
    * Create a new word list for the current user.
    * 
@@ -113,6 +165,7 @@ public class IgnoreWordsServiceImpl implements IgnoreWordsService {
     existingWords.setWords(words);
 
     IgnoreWords savedWords = wordListRepository.save(existingWords);
+    overlayCache.remove(wordListId);
 
     return wordListMapper.convertToDto(savedWords);
   }
@@ -130,6 +183,7 @@ public class IgnoreWordsServiceImpl implements IgnoreWordsService {
         .orElseThrow(() -> new IllegalArgumentException("Word list not found"));
 
     wordListRepository.delete(existingWords);
+    overlayCache.remove(wordListId);
   }
 
   /**
@@ -152,5 +206,6 @@ public class IgnoreWordsServiceImpl implements IgnoreWordsService {
     existingWords.setPublic(isPublic);
 
     wordListRepository.save(existingWords);
+    overlayCache.remove(wordListId);
   }
 }
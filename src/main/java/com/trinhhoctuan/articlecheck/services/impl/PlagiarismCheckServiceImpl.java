@@ -1,20 +1,43 @@
 package com.trinhhoctuan.articlecheck.services.impl;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.trinhhoctuan.articlecheck.config.ReferenceCorpus;
 import com.trinhhoctuan.articlecheck.dtos.PlagiarismCheckDto;
+import com.trinhhoctuan.articlecheck.enums.PlagiarismMode;
 import com.trinhhoctuan.articlecheck.mappers.PlagiarismCheckMapper;
 import com.trinhhoctuan.articlecheck.models.Essay;
+import com.trinhhoctuan.articlecheck.models.Essay.EssayStatus;
 import com.trinhhoctuan.articlecheck.models.PlagiarismCheck;
+import com.trinhhoctuan.articlecheck.repositories.EssayRepository;
 import com.trinhhoctuan.articlecheck.repositories.PlagiarismCheckRepository;
 import com.trinhhoctuan.articlecheck.services.PlagiarismCheckService;
+import com.trinhhoctuan.articlecheck.utils.ShingleProfile;
+import com.trinhhoctuan.articlecheck.utils.TextSegmenter;
+import com.trinhhoctuan.articlecheck.utils.TextSpan;
 
-import info.debatty.java.stringsimilarity.Cosine;
-import info.debatty.java.stringsimilarity.Jaccard;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -24,80 +47,238 @@ import lombok.extern.slf4j.Slf4j;
 @Service
 @Slf4j
 public class PlagiarismCheckServiceImpl implements PlagiarismCheckService {
+  private static final int MIN_SENTENCE_LENGTH = 50;
+  private static final double SIMILARITY_THRESHOLD = 0.7;
+  // Candidates scored between checks of the deadline
+  private static final int DEADLINE_CHECK_INTERVAL = 64;
+  private static final int RUN_LOCK_STRIPES = 64;
+
   private final PlagiarismCheckRepository plagiarismCheckRepository;
   private final PlagiarismCheckMapper plagiarismCheckMapper;
-  private final Cosine cosine;
-  private final Jaccard jaccard;
-  List<String> referenceTexts;
+  private final EssayRepository essayRepository;
+  private final ReferenceCorpus referenceCorpus;
+  private final ExecutorService referenceIndexExecutor;
+  private final ExecutorService plagiarismCheckExecutor;
+  private final ForkJoinPool scoringPool;
+  private final boolean parallelScoring;
+  private final int topK;
+  private final PlagiarismMode mode;
+  private final Duration timeBudget;
+  private final int batchSize;
+  // Runs of an essay hold its stripe, so they never interleave
+  private final Object[] runLocks = new Object[RUN_LOCK_STRIPES];
+
+  /**
+   * A reference sentence similar to a sentence of the checked essay.
+   */
+  private record SourceMatch(TextSpan sentence, ReferenceCorpus.Candidate reference, double similarity) {
+  }
 
   public PlagiarismCheckServiceImpl(
       PlagiarismCheckRepository plagiarismCheckRepository,
-      PlagiarismCheckMapper plagiarismCheckMapper) {
+      PlagiarismCheckMapper plagiarismCheckMapper,
+      EssayRepository essayRepository,
+      ReferenceCorpus referenceCorpus,
+      @Qualifier("referenceIndexExecutor") ExecutorService referenceIndexExecutor,
+      @Qualifier("plagiarismCheckExecutor") ExecutorService plagiarismCheckExecutor,
+      @Qualifier("plagiarismScoringPool") ForkJoinPool scoringPool,
+      @Value("${app.plagiarism.scoring.parallel:true}") boolean parallelScoring,
+      @Value("${app.plagiarism.scoring.top-k:5}") int topK,
+      @Value("${app.plagiarism.mode:BOTH}") PlagiarismMode mode,
+      @Value("${app.plagiarism.stage.time-budget-ms:30000}") long timeBudgetMs,
+      @Value("${app.plagiarism.stage.batch-size:25}") int batchSize) {
     this.plagiarismCheckRepository = plagiarismCheckRepository;
     this.plagiarismCheckMapper = plagiarismCheckMapper;
-    this.cosine = new Cosine();
-    this.jaccard = new Jaccard();
-    this.referenceTexts = new ArrayList<>();
+    this.essayRepository = essayRepository;
+    this.referenceCorpus = referenceCorpus;
+    this.referenceIndexExecutor = referenceIndexExecutor;
+    this.plagiarismCheckExecutor = plagiarismCheckExecutor;
+    this.scoringPool = scoringPool;
+    this.parallelScoring = parallelScoring;
+    this.topK = Math.max(1, topK);
+    this.mode = mode;
+    this.timeBudget = Duration.ofMillis(timeBudgetMs);
+    this.batchSize = Math.max(1, batchSize);
+    Arrays.setAll(runLocks, i -> new Object());
   }
 
   /**
-   * Check for plagiarism in the given essay text.
+   * Add a reference text. Its sentences are indexed so essays are only
+   * compared against similar reference sentences.
    * 
-   * @param essay The essay entity.
-   * @return A list of plagiarism check results.
+   * @param sourceName The display name of the source.
+   * @param sourceUrl  The location of the source, or null.
+   * @param text       The reference text.
    */
   @Override
-  public List<PlagiarismCheckDto> checkPlagiarism(Essay essay, String text) {
-    log.info("Checking plagiarism for essay: {}", essay.getId());
+  public void addReferenceText(String sourceName, String sourceUrl, String text) {
+    addReference(0, sourceName, sourceUrl, text);
+  }
 
-    List<PlagiarismCheck> plagiarismChecks = new ArrayList<>();
+  /**
+   * Add an essay to the reference corpus once the current transaction has
+   * committed, on the reference indexing worker.
+   * 
+   * @param essayId The ID of the stored essay.
+   * @param text    The essay text.
+   */
+  @Override
+  public void scheduleReferenceIndexing(Long essayId, String text) {
+    Runnable task = () -> {
+      try {
+        if (!referenceCorpus.containsEssay(essayId)) {
+          addReference(essayId, "Essay #" + essayId, null, text);
+        }
+      } catch (RuntimeException e) {
+        log.error("Error indexing essay {} as plagiarism reference", essayId, e);
+      }
+    };
+    executeAfterCommit(referenceIndexExecutor, task);
+  }
 
-    // Split text into sentences for more granular checking
-    String[] sentences = text.split("\\. ");
+  /**
+   * Run the plagiarism stage of an essay in the background, after the
+   * current transaction commits. Each call starts a new run of the essay,
+   * superseding earlier ones: a superseded run that has not started is
+   * skipped, and a running one stops at its next batch. Runs of an essay are
+   * serialized, so each replaces the results of the previous one.
+   * 
+   * New results are saved as they are found; the essay then moves to
+   * PLAGIARISM_CHECKED, flagged as partial if the budget ran out. A failed
+   * check leaves the essay GRAMMAR_CHECKED, since its grammar results are
+   * still valid, with its plagiarism results flagged as partial. Neither
+   * applies once the essay was re-processed or another run was scheduled.
+   * 
+   * @param essayId The ID of the essay.
+   */
+  @Override
+  public void schedulePlagiarismCheck(Long essayId) {
+    String runId = UUID.randomUUID().toString();
+    essayRepository.startPlagiarismRun(essayId, runId);
+    BooleanSupplier superseded = () -> !essayRepository.existsByIdAndPlagiarismRunId(essayId, runId);
 
-    for (int i = 0; i < sentences.length; i++) {
-      String sentence = sentences[i].trim();
-      if (sentence.length() < 50)
-        continue; // Skip very short sentences
+    executeAfterCommit(plagiarismCheckExecutor, () -> {
+      synchronized (runLocks[Math.floorMod(essayId.hashCode(), runLocks.length)]) {
+        if (superseded.getAsBoolean()) {
+          log.info("Skipping superseded plagiarism check of essay {}", essayId);
+          return;
+        }
+        try {
+          Essay essay = essayRepository.findById(essayId)
+              .orElseThrow(() -> new RuntimeException("Essay not found"));
+          plagiarismCheckRepository.deleteAll(plagiarismCheckRepository.findByEssayId(essayId));
 
-      for (int j = 0; j < referenceTexts.size(); j++) {
-        String referenceText = referenceTexts.get(j);
+          checkPlagiarism(essay, essay.getOriginalContent(), superseded);
+          if (essayRepository.updatePlagiarismStatus(essayId, runId, EssayStatus.PLAGIARISM_CHECKED,
+              essay.getPlagiarismPartial(), LocalDateTime.now()) == 0) {
+            log.info("Plagiarism check of essay {} was superseded, its status is left unchanged", essayId);
+          }
+        } catch (RuntimeException e) {
+          log.error("Error checking plagiarism for essay: {}", essayId, e);
+          essayRepository.updatePlagiarismStatus(essayId, runId, EssayStatus.GRAMMAR_CHECKED, true,
+              LocalDateTime.now());
+        }
+      }
+    });
+  }
 
-        // Calculate similarity using different algorithms
-        double cosineSimilarity = 1 - cosine.distance(sentence, referenceText);
-        double jaccardSimilarity = 1 - jaccard.distance(sentence, referenceText);
+  /**
+   * Check for plagiarism in the given essay text within the time budget.
+   * 
+   * @param essay The essay entity.
+   * @return A list of plagiarism check results.
+   */
+  @Override
+  public List<PlagiarismCheckDto> checkPlagiarism(Essay essay, String text) {
+    return checkPlagiarism(essay, text, () -> false);
+  }
 
-        // Use average similarity
-        double averageSimilarity = (cosineSimilarity + jaccardSimilarity) / 2;
+  /**
+   * Check for plagiarism in the given essay text within the time budget.
+   * Copied passages are found first, in one pass over the text; sentences
+   * are then scored and saved in batches. The budget is checked between
+   * copying candidate documents into passages, between sentences and while
+   * scoring a sentence's candidates; once it runs out the remaining work is
+   * skipped and the essay is marked as partially checked. A superseded check
+   * stops before its next batch.
+   * 
+   * @param essay      The essay entity.
+   * @param text
+   * @param superseded Whether a newer check of the essay was scheduled.
+   * @return A list of plagiarism check results.
+   */
+  private List<PlagiarismCheckDto> checkPlagiarism(Essay essay, String text, BooleanSupplier superseded) {
+    log.info("Checking plagiarism for essay: {}", essay.getId());
 
-        // Threshold for potential plagiarism
-        if (averageSimilarity > 0.7) {
-          int startPos = text.indexOf(sentence);
-          int endPos = startPos + sentence.length();
+    long deadline = System.nanoTime() + timeBudget.toNanos();
+    long ownEssayId = essay.getId() != null ? essay.getId() : 0;
+    List<PlagiarismCheck> plagiarismChecks = new ArrayList<>();
+    AtomicBoolean truncated = new AtomicBoolean();
 
-          PlagiarismCheck check = PlagiarismCheck.builder()
-              .essay(essay)
-              .matchedText(sentence)
-              .sourceUrl("https://example-source-" + (j + 1) + ".com")
-              .sourceName("Reference Source " + (j + 1))
-              .similarityScore(averageSimilarity)
-              .startPosition(startPos)
-              .endPosition(endPos)
-              .build();
+    if (mode != PlagiarismMode.SENTENCE) {
+      // Passages copied across sentence boundaries
+      plagiarismChecks.addAll(plagiarismCheckRepository.saveAll(checkPassages(essay, text, ownEssayId, deadline)));
+      if (isExpired(deadline)) {
+        truncated.set(true);
+      }
+    }
 
-          plagiarismChecks.add(check);
+    if (mode != PlagiarismMode.WINNOWING) {
+      List<TextSpan> sentences = splitSentences(text);
+      for (int from = 0; from < sentences.size(); from += batchSize) {
+        if (superseded.getAsBoolean()) {
+          log.info("Plagiarism check of essay {} was superseded after {} of {} sentences", essay.getId(), from,
+              sentences.size());
+          truncated.set(true);
+          break;
+        }
+        if (isExpired(deadline)) {
+          log.warn("Plagiarism check of essay {} ran out of its {} ms budget after {} of {} sentences",
+              essay.getId(), timeBudget.toMillis(), from, sentences.size());
+          truncated.set(true);
+          break;
         }
+        List<TextSpan> batch = sentences.subList(from, Math.min(from + batchSize, sentences.size()));
+        plagiarismChecks.addAll(plagiarismCheckRepository.saveAll(
+            checkSentences(essay, text, batch, ownEssayId, deadline, truncated)));
       }
-
     }
-
-    plagiarismCheckRepository.saveAll(plagiarismChecks);
+    essay.setPlagiarismPartial(truncated.get());
 
     return plagiarismChecks.stream()
         .map(plagiarismCheckMapper::convertToDto)
         .collect(Collectors.toList());
   }
 
+  /**
+   * Copy the stored plagiarism checks of an essay to another essay with the
+   * same content.
+   * 
+   * @param source The essay the checks were stored for.
+   * @param target The essay to copy them to.
+   * @return The copied plagiarism checks.
+   */
+  @Override
+  public List<PlagiarismCheckDto> copyPlagiarismChecks(Essay source, Essay target) {
+    List<PlagiarismCheck> copies = plagiarismCheckRepository.findByEssayId(source.getId())
+        .stream()
+        .<PlagiarismCheck>map(plagiarismCheck -> PlagiarismCheck.builder()
+            .essay(target)
+            .matchedText(plagiarismCheck.getMatchedText())
+            .sourceUrl(plagiarismCheck.getSourceUrl())
+            .sourceName(plagiarismCheck.getSourceName())
+            .similarityScore(plagiarismCheck.getSimilarityScore())
+            .startPosition(plagiarismCheck.getStartPosition())
+            .endPosition(plagiarismCheck.getEndPosition())
+            .build())
+        .toList();
+
+    return plagiarismCheckRepository.saveAll(copies)
+        .stream()
+        .map(plagiarismCheckMapper::convertToDto)
+        .collect(Collectors.toList());
+  }
+
   /**
    * Get all plagiarism checks for a specific essay.
    * 
@@ -126,4 +307,206 @@ public class PlagiarismCheckServiceImpl implements PlagiarismCheckService {
         .map(plagiarismCheckMapper::convertToDto)
         .collect(Collectors.toList());
   }
+
+  /**
+   * Find the passages of an essay copied from reference documents.
+   * 
+   * @param essay
+   * @param text
+   * @param ownEssayId
+   * @param deadline   The System.nanoTime() the budget runs out at.
+   * @return The unsaved plagiarism checks, in text order.
+   */
+  private List<PlagiarismCheck> checkPassages(Essay essay, String text, long ownEssayId, long deadline) {
+    List<PlagiarismCheck> plagiarismChecks = new ArrayList<>();
+    for (ReferenceCorpus.PassageMatch passage : referenceCorpus.copiedPassages(text, ownEssayId, deadline)) {
+      if (passage.similarity() <= SIMILARITY_THRESHOLD) {
+        continue;
+      }
+      PlagiarismCheck check = PlagiarismCheck.builder()
+          .essay(essay)
+          .matchedText(passage.span().of(text))
+          .sourceUrl(passage.sourceUrl())
+          .sourceName(passage.sourceName())
+          .similarityScore(passage.similarity())
+          .startPosition(passage.span().start())
+          .endPosition(passage.span().end())
+          .build();
+
+      plagiarismChecks.add(check);
+    }
+    return plagiarismChecks;
+  }
+
+  /**
+   * Check sentences of an essay against similar reference sentences.
+   * 
+   * @param essay
+   * @param text
+   * @param sentences
+   * @param ownEssayId
+   * @param deadline   The System.nanoTime() the budget runs out at.
+   * @param truncated  Set when sentences are skipped for the budget.
+   * @return The unsaved plagiarism checks, in sentence order.
+   */
+  private List<PlagiarismCheck> checkSentences(Essay essay, String text, List<TextSpan> sentences,
+      long ownEssayId, long deadline, AtomicBoolean truncated) {
+    // Score the sentences in parallel, keeping the top sources of each
+    List<List<SourceMatch>> sentenceMatches;
+    if (parallelScoring && sentences.size() > 1) {
+      try {
+        sentenceMatches = scoringPool.submit(
+            () -> scoreSentences(text, sentences.parallelStream(), ownEssayId, deadline, truncated)).get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException("Interrupted while checking plagiarism for essay " + essay.getId(), e);
+      } catch (ExecutionException e) {
+        throw new RuntimeException("Error checking plagiarism for essay " + essay.getId(), e.getCause());
+      }
+    } else {
+      sentenceMatches = scoreSentences(text, sentences.stream(), ownEssayId, deadline, truncated);
+    }
+
+    List<PlagiarismCheck> plagiarismChecks = new ArrayList<>();
+    for (List<SourceMatch> matches : sentenceMatches) {
+      for (SourceMatch match : matches) {
+        PlagiarismCheck check = PlagiarismCheck.builder()
+            .essay(essay)
+            .matchedText(match.sentence().of(text))
+            .sourceUrl(match.reference().sourceUrl())
+            .sourceName(match.reference().sourceName())
+            .similarityScore(match.similarity())
+            .startPosition(match.sentence().start())
+            .endPosition(match.sentence().end())
+            .build();
+
+        plagiarismChecks.add(check);
+      }
+    }
+    return plagiarismChecks;
+  }
+
+  /**
+   * Score sentences against their reference candidates, in sentence order.
+   * 
+   * @param text
+   * @param sentences
+   * @param ownEssayId The checked essay, whose own sentences are skipped.
+   * @param deadline
+   * @param truncated
+   * @return The top sources of each sentence.
+   */
+  private List<List<SourceMatch>> scoreSentences(String text, Stream<TextSpan> sentences, long ownEssayId,
+      long deadline, AtomicBoolean truncated) {
+    return sentences.map(sentence -> scoreSentence(text, sentence, ownEssayId, deadline, truncated)).toList();
+  }
+
+  /**
+   * Score a sentence against the reference sentences sharing an LSH band
+   * with it, keeping the top-k sources above the threshold in a bounded heap.
+   * Once the deadline passes the sentence is skipped, or its remaining
+   * candidates are.
+   * 
+   * @param text
+   * @param sentence
+   * @param ownEssayId
+   * @param deadline
+   * @param truncated
+   * @return Matches by descending similarity.
+   */
+  private List<SourceMatch> scoreSentence(String text, TextSpan sentence, long ownEssayId, long deadline,
+      AtomicBoolean truncated) {
+    if (isExpired(deadline)) {
+      truncated.set(true);
+      return List.of();
+    }
+    String sentenceText = sentence.of(text);
+    ShingleProfile profile = ShingleProfile.of(sentenceText);
+    PriorityQueue<SourceMatch> topMatches = new PriorityQueue<>(
+        Comparator.comparingDouble(SourceMatch::similarity));
+
+    List<ReferenceCorpus.Candidate> candidates = referenceCorpus.candidates(sentenceText, deadline);
+    for (int i = 0; i < candidates.size(); i++) {
+      if (i % DEADLINE_CHECK_INTERVAL == DEADLINE_CHECK_INTERVAL - 1 && isExpired(deadline)) {
+        truncated.set(true);
+        break;
+      }
+      ReferenceCorpus.Candidate reference = candidates.get(i);
+      if (ownEssayId != 0 && reference.essayId() == ownEssayId) {
+        continue; // The essay's own sentences
+      }
+
+      // Average of the cosine and Jaccard similarity of the 3-shingles
+      double similarity = profile.similarity(reference.profile()).average();
+      if (similarity <= SIMILARITY_THRESHOLD) {
+        continue;
+      }
+      if (topMatches.size() < topK) {
+        topMatches.add(new SourceMatch(sentence, reference, similarity));
+      } else if (similarity > topMatches.peek().similarity()) {
+        topMatches.poll();
+        topMatches.add(new SourceMatch(sentence, reference, similarity));
+      }
+    }
+
+    List<SourceMatch> matches = new ArrayList<>(topMatches);
+    matches.sort(Comparator.comparingDouble(SourceMatch::similarity).reversed());
+    return matches;
+  }
+
+  private static boolean isExpired(long deadline) {
+    return System.nanoTime() - deadline > 0;
+  }
+
+  /**
+   * Run a task once the current transaction has committed, or right away
+   * outside a transaction.
+   * 
+   * @param executor
+   * @param task
+   */
+  private void executeAfterCommit(ExecutorService executor, Runnable task) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          executor.execute(task);
+        }
+      });
+    } else {
+      executor.execute(task);
+    }
+  }
+
+  /**
+   * Add the sentences of a text to the reference corpus.
+   * 
+   * @param essayId    The essay the text was taken from, or 0.
+   * @param sourceName
+   * @param sourceUrl
+   * @param text
+   */
+  private void addReference(long essayId, String sourceName, String sourceUrl, String text) {
+    List<String> sentences = splitSentences(text).stream()
+        .map(sentence -> sentence.of(text))
+        .toList();
+    try {
+      referenceCorpus.addDocument(essayId, sourceName, sourceUrl, text, sentences);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot add reference " + sourceName, e);
+    }
+    log.debug("Indexed {} sentences of reference {}", sentences.size(), sourceName);
+  }
+
+  /**
+   * Split a text into trimmed sentences, skipping very short ones.
+   * 
+   * @param text
+   * @return The sentence spans in the text.
+   */
+  private List<TextSpan> splitSentences(String text) {
+    return TextSegmenter.sentences(text, new TextSpan(0, text.length())).stream()
+        .filter(sentence -> sentence.length() >= MIN_SENTENCE_LENGTH)
+        .toList();
+  }
 }
@@ -0,0 +1,94 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Thread-safe, size-bounded cache with least-recently-used eviction.
+ * Keeps hit and miss counters so callers can export them as metrics.
+ */
+public class BoundedCache<K, V> {
+  private final Map<K, V> entries;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  public BoundedCache(int maxEntries) {
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  /**
+   * Get a cached value, or null if absent.
+   *
+   * @param key
+   * @return
+   */
+  public V get(K key) {
+    V value;
+    synchronized (entries) {
+      value = entries.get(key);
+    }
+    (value != null ? hits : misses).incrementAndGet();
+    return value;
+  }
+
+  /**
+   * Get a cached value, computing and caching it on a miss. The loader runs
+   * outside the lock, so two threads may compute the same value concurrently.
+   *
+   * @param key
+   * @param loader
+   * @return
+   */
+  public V get(K key, Function<? super K, ? extends V> loader) {
+    V value = get(key);
+    if (value == null) {
+      value = loader.apply(key);
+      put(key, value);
+    }
+    return value;
+  }
+
+  /**
+   * Store a value, evicting the least recently used entry when full.
+   *
+   * @param key
+   * @param value
+   */
+  public void put(K key, V value) {
+    synchronized (entries) {
+      entries.put(key, value);
+    }
+  }
+
+  /**
+   * Remove a value from the cache.
+   *
+   * @param key
+   */
+  public void remove(K key) {
+    synchronized (entries) {
+      entries.remove(key);
+    }
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+}
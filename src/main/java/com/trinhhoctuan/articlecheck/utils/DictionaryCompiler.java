@@ -0,0 +1,134 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compiles a Hunspell word list (.dic) into the binary format read by
+ * {@link MappedDictionary}: an open-addressing hash table of offsets into a
+ * blob of length-prefixed UTF-8 words.
+ *
+ * <pre>
+ * header: int magic, int version, int wordCount, int slotCount
+ * slots:  slotCount ints, 0 for empty or 1 + offset of the word in the blob
+ * blob:   per word an unsigned short byte length followed by UTF-8 bytes
+ * </pre>
+ *
+ * Only plain word lists are supported; affix flags are rejected because the
+ * runtime lookup does not expand affixes. The class has no dependencies
+ * beyond the JDK so the build can run it straight from the compiled classes.
+ */
+public class DictionaryCompiler {
+  public static final int MAGIC = 0x56444943;
+  public static final int VERSION = 1;
+  public static final int HEADER_BYTES = 16;
+  public static final String FILE_EXTENSION = ".vdict";
+
+  private DictionaryCompiler() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  /**
+   * Compile every .dic file of a directory. Used by the Gradle
+   * compileDictionaries task.
+   *
+   * @param args source directory and output directory
+   * @throws IOException
+   */
+  public static void main(String[] args) throws IOException {
+    Path sourceDir = Path.of(args[0]);
+    Path outputDir = Path.of(args[1]);
+    Files.createDirectories(outputDir);
+    try (var dicFiles = Files.list(sourceDir)) {
+      for (Path dicFile : dicFiles.filter(path -> path.toString().endsWith(".dic")).toList()) {
+        String baseName = dicFile.getFileName().toString().replaceFirst("\\.dic$", "");
+        try (InputStream inputStream = Files.newInputStream(dicFile)) {
+          Files.write(outputDir.resolve(baseName + FILE_EXTENSION), compile(inputStream));
+        }
+      }
+    }
+  }
+
+  /**
+   * Compile a .dic word list.
+   *
+   * @param dicStream
+   * @return
+   * @throws IOException
+   */
+  public static byte[] compile(InputStream dicStream) throws IOException {
+    List<String> lines = new String(dicStream.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+
+    // The first line of a .dic file is the approximate word count
+    Set<String> words = new LinkedHashSet<>();
+    for (String line : lines.subList(Math.min(1, lines.size()), lines.size())) {
+      String word = line.strip();
+      if (word.isEmpty()) {
+        continue;
+      }
+      if (word.indexOf('/') >= 0) {
+        throw new IllegalArgumentException("Affix flags are not supported: " + word);
+      }
+      words.add(Normalizer.normalize(word, Normalizer.Form.NFC));
+    }
+    return compile(words);
+  }
+
+  /**
+   * Compile a set of words.
+   *
+   * @param words
+   * @return
+   */
+  public static byte[] compile(Set<String> words) {
+    int slotCount = Integer.highestOneBit(Math.max(2, words.size() * 2 - 1)) << 1;
+    int[] slots = new int[slotCount];
+
+    ByteBuffer blob = ByteBuffer.allocate(words.stream()
+        .mapToInt(word -> 2 + word.getBytes(StandardCharsets.UTF_8).length)
+        .sum());
+    for (String word : words) {
+      byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+      int slot = hash(bytes) & (slotCount - 1);
+      while (slots[slot] != 0) {
+        slot = (slot + 1) & (slotCount - 1);
+      }
+      slots[slot] = blob.position() + 1;
+      blob.putShort((short) bytes.length);
+      blob.put(bytes);
+    }
+
+    ByteBuffer output = ByteBuffer.allocate(HEADER_BYTES + slotCount * 4 + blob.capacity())
+        .order(ByteOrder.BIG_ENDIAN);
+    output.putInt(MAGIC).putInt(VERSION).putInt(words.size()).putInt(slotCount);
+    for (int slot : slots) {
+      output.putInt(slot);
+    }
+    output.put(blob.array());
+    return output.array();
+  }
+
+  /**
+   * FNV-1a hash of the UTF-8 bytes of a word, used to place and look up words.
+   *
+   * @param bytes
+   * @return
+   */
+  static int hash(byte[] bytes) {
+    int hash = 0x811c9dc5;
+    for (byte b : bytes) {
+      hash ^= b & 0xff;
+      hash *= 0x01000193;
+    }
+    return hash;
+  }
+}
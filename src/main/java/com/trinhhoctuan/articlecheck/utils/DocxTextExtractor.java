@@ -0,0 +1,210 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.poi.UnsupportedFileFormatException;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.openxml4j.opc.PackageRelationshipTypes;
+
+/**
+ * Utility class that extracts the body text of a DOCX file by streaming its
+ * main document part with StAX, without building the XWPF document model.
+ * Only that part is inflated; images and other media parts are never read.
+ *
+ * Paragraphs end with a newline, table cells are separated by tabs, rows end
+ * with a newline and tables with another, as XWPFWordExtractor does. Deleted
+ * revisions, field codes and the fallback copies of alternate content are
+ * skipped, where XWPFWordExtractor keeps deleted text; text boxes, which it
+ * drops, are kept. Headers, footers and notes are not extracted.
+ */
+public class DocxTextExtractor {
+  private static final String WORDPROCESSING_NS = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+  private static final String MARKUP_COMPATIBILITY_NS = "http://schemas.openxmlformats.org/markup-compatibility/2006";
+  private static final XMLInputFactory XML_INPUT_FACTORY = newXmlInputFactory();
+
+  /**
+   * Thrown when a well-formed package cannot be streamed, so the caller
+   * should read it through the XWPF document model instead.
+   */
+  public static class UnsupportedDocumentException extends IOException {
+    public UnsupportedDocumentException(String message) {
+      super(message);
+    }
+  }
+
+  private DocxTextExtractor() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  /**
+   * Extract the body text of a DOCX file.
+   *
+   * @param file
+   * @return
+   * @throws UnsupportedDocumentException If the main document is not a
+   *                                       transitional WordprocessingML
+   *                                       document.
+   * @throws IOException                   If the file cannot be read or is
+   *                                       not a well-formed package.
+   */
+  public static String extract(Path file) throws IOException {
+    OPCPackage opcPackage;
+    try {
+      opcPackage = OPCPackage.open(file.toFile(), PackageAccess.READ);
+    } catch (InvalidFormatException | UnsupportedFileFormatException e) {
+      throw new IOException("Not an OPC package: " + file.getFileName(), e);
+    }
+    try {
+      List<PackagePart> documents = opcPackage.getPartsByRelationshipType(PackageRelationshipTypes.CORE_DOCUMENT);
+      if (documents.isEmpty()) {
+        throw new UnsupportedDocumentException("No main document part in " + file.getFileName());
+      }
+      PackagePart document = documents.get(0);
+      try (InputStream inputStream = document.getInputStream()) {
+        return extract(inputStream);
+      } catch (XMLStreamException e) {
+        throw new IOException("Malformed main document part in " + file.getFileName(), e);
+      }
+    } finally {
+      // Read-only packages are discarded, not saved
+      opcPackage.revert();
+    }
+  }
+
+  private static String extract(InputStream inputStream)
+      throws XMLStreamException, UnsupportedDocumentException {
+    XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(inputStream);
+    try {
+      StringBuilder text = new StringBuilder();
+      // Separator owed before the next text: a paragraph, cell or row end
+      char pendingSeparator = 0;
+      boolean inText = false;
+      // Tabs and breaks are content only in runs; in paragraph properties they are tab stops
+      boolean inRun = false;
+      int skippedDepth = 0;
+      boolean rootChecked = false;
+
+      while (reader.hasNext()) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          if (!rootChecked) {
+            if (!WORDPROCESSING_NS.equals(reader.getNamespaceURI())) {
+              throw new UnsupportedDocumentException("Unsupported document namespace " + reader.getNamespaceURI());
+            }
+            rootChecked = true;
+          }
+          if (skippedDepth > 0 || isSkipped(reader)) {
+            skippedDepth++;
+            continue;
+          }
+          if (!WORDPROCESSING_NS.equals(reader.getNamespaceURI())) {
+            continue;
+          }
+          switch (reader.getLocalName()) {
+            case "r" -> inRun = true;
+            case "t" -> inText = true;
+            case "tab", "br", "cr", "noBreakHyphen" -> {
+              if (!inRun) {
+                continue;
+              }
+              pendingSeparator = flush(text, pendingSeparator);
+              text.append(switch (reader.getLocalName()) {
+                case "tab" -> '\t';
+                case "noBreakHyphen" -> '-';
+                default -> '\n';
+              });
+            }
+            default -> {
+            }
+          }
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          if (skippedDepth > 0) {
+            skippedDepth--;
+            continue;
+          }
+          if (!WORDPROCESSING_NS.equals(reader.getNamespaceURI())) {
+            continue;
+          }
+          switch (reader.getLocalName()) {
+            case "r" -> inRun = false;
+            case "t" -> inText = false;
+            case "p" -> {
+              pendingSeparator = flush(text, pendingSeparator);
+              pendingSeparator = '\n';
+            }
+            case "tc" -> {
+              pendingSeparator = 0;
+              text.append('\t');
+            }
+            case "tr" -> {
+              // The tab after the last cell becomes the row end
+              if (!text.isEmpty() && text.charAt(text.length() - 1) == '\t') {
+                text.setLength(text.length() - 1);
+              }
+              text.append('\n');
+            }
+            case "tbl" -> text.append('\n');
+            default -> {
+            }
+          }
+        } else if (inText && skippedDepth == 0
+            && (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                || event == XMLStreamConstants.SPACE)) {
+          pendingSeparator = flush(text, pendingSeparator);
+          text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+        }
+      }
+      flush(text, pendingSeparator);
+      return text.toString();
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Check if an element's content is not body text: deleted revisions, field
+   * instructions, and the fallback of alternate content, whose chosen
+   * alternative holds the same text.
+   */
+  private static boolean isSkipped(XMLStreamReader reader) {
+    String namespace = reader.getNamespaceURI();
+    String name = reader.getLocalName();
+    if (MARKUP_COMPATIBILITY_NS.equals(namespace)) {
+      return "Fallback".equals(name);
+    }
+    return WORDPROCESSING_NS.equals(namespace)
+        && ("delText".equals(name) || "instrText".equals(name) || "delInstrText".equals(name));
+  }
+
+  private static char flush(StringBuilder text, char pendingSeparator) {
+    if (pendingSeparator != 0) {
+      text.append(pendingSeparator);
+    }
+    return 0;
+  }
+
+  private static XMLInputFactory newXmlInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newFactory();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+    try {
+      factory.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+    } catch (IllegalArgumentException e) {
+      // Not supported by every StAX implementation; DTDs are disabled anyway
+    }
+    return factory;
+  }
+}
@@ -0,0 +1,99 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Table from winnowing fingerprints to the documents and offsets they were
+ * selected at, kept in primitive arrays so hundreds of millions of
+ * fingerprints fit on the heap without boxing.
+ *
+ * Each fingerprint occurrence is a LongPostingTable posting of two columns,
+ * document and offset.
+ */
+public class FingerprintIndex {
+  private static final int DOCUMENT = 0;
+  private static final int OFFSET = 1;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final LongPostingTable table = new LongPostingTable(2);
+
+  /**
+   * Consumer of the occurrences of a fingerprint.
+   */
+  @FunctionalInterface
+  public interface PostingConsumer {
+    /**
+     * @param document The document id.
+     * @param offset   The start offset of the k-gram in the document.
+     */
+    void accept(int document, int offset);
+  }
+
+  /**
+   * Add the fingerprints of a document.
+   *
+   * @param document
+   * @param hashes
+   * @param offsets
+   */
+  public void add(int document, long[] hashes, int[] offsets) {
+    lock.writeLock().lock();
+    try {
+      table.ensureCapacity(hashes.length);
+      for (int i = 0; i < hashes.length; i++) {
+        int posting = table.add(hashes[i]);
+        table.set(posting, DOCUMENT, document);
+        table.set(posting, OFFSET, offsets[i]);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Count the occurrences of a fingerprint.
+   *
+   * @param hash
+   * @return
+   */
+  public int count(long hash) {
+    lock.readLock().lock();
+    try {
+      return table.count(hash);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Visit the occurrences of a fingerprint, newest first.
+   *
+   * @param hash
+   * @param consumer
+   */
+  public void forEach(long hash, PostingConsumer consumer) {
+    lock.readLock().lock();
+    try {
+      for (int posting = table.head(hash); posting != LongPostingTable.NO_POSTING; posting = table.next(posting)) {
+        consumer.accept(table.get(posting, DOCUMENT), table.get(posting, OFFSET));
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Get the number of stored fingerprint occurrences.
+   *
+   * @return
+   */
+  public long size() {
+    lock.readLock().lock();
+    try {
+      return table.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+}
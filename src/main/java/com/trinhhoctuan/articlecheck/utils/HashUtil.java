@@ -0,0 +1,82 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Utility class for content hashing.
+ */
+public class HashUtil {
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private HashUtil() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  /**
+   * 64-bit FNV-1a hash of the characters in the given range.
+   *
+   * @param text
+   * @param start
+   * @param end
+   * @return
+   */
+  public static long hash64(CharSequence text, int start, int end) {
+    long hash = FNV_OFFSET_BASIS;
+    for (int i = start; i < end; i++) {
+      char c = text.charAt(i);
+      hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+      hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+    }
+    return hash;
+  }
+
+  /**
+   * 64-bit FNV-1a hash of the whole text.
+   *
+   * @param text
+   * @return
+   */
+  public static long hash64(CharSequence text) {
+    return hash64(text, 0, text.length());
+  }
+
+  /**
+   * 64-bit finalizer of SplitMix64: spreads the bits of a hash whose low or
+   * high bits are poorly distributed over all 64 bits.
+   *
+   * @param value
+   * @return
+   */
+  public static long mix(long value) {
+    value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+    value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+    return value ^ (value >>> 31);
+  }
+
+  /**
+   * SHA-256 of the UTF-8 encoded text as a lowercase hex string.
+   *
+   * @param text
+   * @return
+   */
+  public static String sha256Hex(String text) {
+    return HexFormat.of().formatHex(newSha256().digest(text.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * Create a new SHA-256 message digest.
+   *
+   * @return
+   */
+  public static MessageDigest newSha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+}
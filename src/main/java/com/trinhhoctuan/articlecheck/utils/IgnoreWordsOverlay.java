@@ -0,0 +1,86 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.spelling.SpellingCheckRule;
+
+/**
+ * Immutable set of words a single check should not report as misspelled.
+ * Applied to the matches of one check instead of being added to the shared
+ * speller, so one user's words never leak into another user's results.
+ */
+public final class IgnoreWordsOverlay {
+  public static final IgnoreWordsOverlay EMPTY = new IgnoreWordsOverlay(Set.of());
+
+  private final Set<String> words;
+  private final String fingerprint;
+
+  private IgnoreWordsOverlay(Set<String> words) {
+    this.words = words;
+    this.fingerprint = words.isEmpty() ? "0"
+        : Long.toHexString(HashUtil.hash64(String.join("\n", new TreeSet<>(words))));
+  }
+
+  /**
+   * Compile an overlay from raw words. Blank entries are dropped and words
+   * are matched case-insensitively.
+   *
+   * @param rawWords
+   * @return
+   */
+  public static IgnoreWordsOverlay of(Collection<String> rawWords) {
+    Set<String> words = rawWords.stream()
+        .map(String::trim)
+        .filter(word -> !word.isEmpty())
+        .map(word -> word.toLowerCase(Locale.ROOT))
+        .collect(Collectors.toUnmodifiableSet());
+    return words.isEmpty() ? EMPTY : new IgnoreWordsOverlay(words);
+  }
+
+  /**
+   * Check whether the given token is ignored.
+   *
+   * @param token
+   * @return
+   */
+  public boolean contains(String token) {
+    return !words.isEmpty() && words.contains(token.toLowerCase(Locale.ROOT));
+  }
+
+  public boolean isEmpty() {
+    return words.isEmpty();
+  }
+
+  /**
+   * Get a hash of the ignored words, identical for overlays with the same
+   * words. Used to key cached check results.
+   *
+   * @return
+   */
+  public String getFingerprint() {
+    return fingerprint;
+  }
+
+  /**
+   * Drop spelling matches whose covered text is an ignored word.
+   *
+   * @param matches
+   * @param text    The checked text the match positions refer to.
+   * @return
+   */
+  public List<RuleMatch> filter(List<RuleMatch> matches, String text) {
+    if (words.isEmpty()) {
+      return matches;
+    }
+    return matches.stream()
+        .filter(match -> !(match.getRule() instanceof SpellingCheckRule)
+            || !contains(text.substring(match.getFromPos(), match.getToPos())))
+        .collect(Collectors.toList());
+  }
+}
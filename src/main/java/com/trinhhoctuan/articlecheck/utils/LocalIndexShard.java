@@ -0,0 +1,122 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Shard of the fingerprint index hosted in this process, backed by a
+ * {@link FingerprintIndex}. With a file, added documents are persisted as
+ * sentence-less records of a {@link ReferenceCorpusFile} and reloaded on open,
+ * so a node keeps the fingerprints other nodes sent to its shards; without
+ * one, the shard is rebuilt by the corpora that feed it.
+ */
+@Slf4j
+public class LocalIndexShard implements PlagiarismIndexShard, Closeable {
+  private final FingerprintIndex index = new FingerprintIndex();
+  private final ReferenceCorpusFile file;
+  private final List<Source> sources = new ArrayList<>();
+  private final Map<Long, Integer> documents = new HashMap<>();
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /**
+   * Open a shard.
+   *
+   * @param path        The file the shard is persisted in, or null to keep
+   *                    it in memory only.
+   * @param kgramLength
+   * @param windowSize
+   * @throws IOException
+   */
+  public LocalIndexShard(Path path, int kgramLength, int windowSize) throws IOException {
+    this.file = path != null ? ReferenceCorpusFile.open(path, 0, 0, 0, kgramLength, windowSize) : null;
+    if (file != null) {
+      file.forEachDocument(stored -> {
+        // Fingerprints of other winnowing parameters are sent again by their corpora
+        if (stored.fingerprints() != null) {
+          register(new Source(stored.essayId(), stored.sourceName(), stored.sourceUrl()), stored.fingerprints(),
+              stored.fingerprintOffsets());
+        }
+      });
+      log.info("Opened fingerprint index shard {} with {} documents and {} fingerprints", path, sources.size(),
+          index.size());
+    }
+  }
+
+  @Override
+  public synchronized void add(Source source, long[] hashes, int[] offsets) {
+    lock.readLock().lock();
+    try {
+      if (documents.containsKey(source.document())) {
+        return;
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    if (file != null) {
+      try {
+        file.append(source.document(), source.sourceName(), source.sourceUrl(), List.of(), List.of(), hashes,
+            offsets);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Cannot persist document " + source.document() + " in the shard", e);
+      }
+    }
+    register(source, hashes, offsets);
+  }
+
+  @Override
+  public Postings lookup(long[] hashes, int maxOccurrences) {
+    PostingsBuilder postings = new PostingsBuilder();
+    for (int i = 0; i < hashes.length; i++) {
+      if (index.count(hashes[i]) > maxOccurrences) {
+        continue;
+      }
+      int fingerprint = i;
+      index.forEach(hashes[i], (document, offset) -> postings.add(fingerprint, source(document), offset));
+    }
+    return postings.build();
+  }
+
+  @Override
+  public long size() {
+    return index.size();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (file != null) {
+      file.close();
+    }
+  }
+
+  private void register(Source source, long[] hashes, int[] offsets) {
+    int document;
+    lock.writeLock().lock();
+    try {
+      document = sources.size();
+      sources.add(source);
+      documents.put(source.document(), document);
+    } finally {
+      lock.writeLock().unlock();
+    }
+    index.add(document, hashes, offsets);
+  }
+
+  private Source source(int document) {
+    lock.readLock().lock();
+    try {
+      return sources.get(document);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+}
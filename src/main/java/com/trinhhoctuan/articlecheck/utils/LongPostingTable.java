@@ -0,0 +1,200 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+import java.util.Arrays;
+
+/**
+ * Table from long keys to chains of postings, kept in primitive arrays so
+ * hundreds of millions of postings fit on the heap without boxing. Shared by
+ * FingerprintIndex and MinHashLshIndex; not thread-safe, callers guard it
+ * with their own lock.
+ *
+ * Distinct keys live in an open-addressing table with linear probing (long
+ * key, int head posting, int posting count). Postings are appended to
+ * parallel int arrays, one per value column plus the next link, and chained
+ * per key, newest first.
+ *
+ * Cost per posting: 4 bytes per column plus 4 for the next link, plus, for a
+ * new distinct key, a 16 byte slot (key, head, count) at a load factor
+ * between 0.375 and 0.75, i.e. 21 to 43 bytes. Keys of both indexes are
+ * 64-bit hashes that rarely repeat, so with two columns a posting costs 33
+ * to 61 bytes with array growth slack; 43 bytes were measured at 5 million
+ * fingerprints, against 135 bytes for a HashMap of boxed longs to lists of
+ * posting records (see FingerprintIndexBenchmark).
+ */
+class LongPostingTable {
+  static final int NO_POSTING = -1;
+
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final float MAX_LOAD_FACTOR = 0.75f;
+
+  // Open-addressing table of distinct keys; empty slots have no head
+  private long[] keys = new long[INITIAL_CAPACITY];
+  private int[] heads = filled(INITIAL_CAPACITY, NO_POSTING);
+  private int[] counts = new int[INITIAL_CAPACITY];
+  private int distinct;
+  // Posting values by column, chained per key through next
+  private final int[][] columns;
+  private int[] postingNext = new int[INITIAL_CAPACITY];
+  private int size;
+
+  /**
+   * @param columns The number of int values stored per posting.
+   */
+  LongPostingTable(int columns) {
+    if (columns <= 0) {
+      throw new IllegalArgumentException("A posting needs at least one column");
+    }
+    this.columns = new int[columns][INITIAL_CAPACITY];
+  }
+
+  /**
+   * Grow the posting arrays up front for a batch of postings.
+   *
+   * @param additional
+   */
+  void ensureCapacity(int additional) {
+    long required = (long) size + additional;
+    if (required <= postingNext.length) {
+      return;
+    }
+    if (required > Integer.MAX_VALUE - 8) {
+      throw new IllegalStateException("Posting table is full at " + size + " postings");
+    }
+    int capacity = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(required, postingNext.length * 3L / 2));
+    for (int column = 0; column < columns.length; column++) {
+      columns[column] = Arrays.copyOf(columns[column], capacity);
+    }
+    postingNext = Arrays.copyOf(postingNext, capacity);
+  }
+
+  /**
+   * Prepend a posting to the chain of a key. Its values are set with set.
+   *
+   * @param key
+   * @return The new posting.
+   */
+  int add(long key) {
+    ensureCapacity(1);
+    if (distinct + 1 > keys.length * MAX_LOAD_FACTOR) {
+      rehash(keys.length * 2);
+    }
+    int slot = slot(key);
+    if (heads[slot] == NO_POSTING) {
+      keys[slot] = key;
+      distinct++;
+    }
+    postingNext[size] = heads[slot];
+    heads[slot] = size;
+    counts[slot]++;
+    return size++;
+  }
+
+  /**
+   * Set a value of a posting.
+   *
+   * @param posting
+   * @param column
+   * @param value
+   */
+  void set(int posting, int column, int value) {
+    columns[column][posting] = value;
+  }
+
+  /**
+   * Get a value of a posting.
+   *
+   * @param posting
+   * @param column
+   * @return
+   */
+  int get(int posting, int column) {
+    return columns[column][posting];
+  }
+
+  /**
+   * Get the newest posting of a key.
+   *
+   * @param key
+   * @return The posting, or NO_POSTING for an unknown key.
+   */
+  int head(long key) {
+    return heads[slot(key)];
+  }
+
+  /**
+   * Get the next older posting of the same key.
+   *
+   * @param posting
+   * @return The posting, or NO_POSTING at the end of the chain.
+   */
+  int next(int posting) {
+    return postingNext[posting];
+  }
+
+  /**
+   * Count the postings of a key.
+   *
+   * @param key
+   * @return
+   */
+  int count(long key) {
+    int slot = slot(key);
+    return heads[slot] == NO_POSTING ? 0 : counts[slot];
+  }
+
+  /**
+   * Get the number of distinct keys.
+   *
+   * @return
+   */
+  int distinct() {
+    return distinct;
+  }
+
+  /**
+   * Get the number of postings.
+   *
+   * @return
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Find the slot of a key, or the empty slot to insert it at.
+   */
+  private int slot(long key) {
+    int mask = keys.length - 1;
+    int slot = (int) (key ^ (key >>> 32)) & mask;
+    while (heads[slot] != NO_POSTING && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void rehash(int capacity) {
+    if (capacity <= 0 || capacity > 1 << 30) {
+      throw new IllegalStateException("Posting table is full at " + distinct + " distinct keys");
+    }
+    long[] oldKeys = keys;
+    int[] oldHeads = heads;
+    int[] oldCounts = counts;
+    keys = new long[capacity];
+    heads = filled(capacity, NO_POSTING);
+    counts = new int[capacity];
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldHeads[i] != NO_POSTING) {
+        int slot = slot(oldKeys[i]);
+        keys[slot] = oldKeys[i];
+        heads[slot] = oldHeads[i];
+        counts[slot] = oldCounts[i];
+      }
+    }
+  }
+
+  private static int[] filled(int length, int value) {
+    int[] array = new int[length];
+    Arrays.fill(array, value);
+    return array;
+  }
+}
@@ -0,0 +1,206 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Read-only word list in the format written by {@link DictionaryCompiler},
+ * memory-mapped so that all LanguageTool instances share one copy outside the
+ * heap and opening it costs no parsing.
+ */
+@Slf4j
+public class MappedDictionary {
+  public static final String DATA_DIR_PROPERTY = "articlecheck.dictionary.dir";
+
+  private static final Map<String, MappedDictionary> OPENED = new ConcurrentHashMap<>();
+
+  private final ByteBuffer buffer;
+  private final int wordCount;
+  private final int slotMask;
+  private final int blobStart;
+  private final SuggestionRules suggestionRules;
+
+  private MappedDictionary(ByteBuffer buffer, SuggestionRules suggestionRules) {
+    if (buffer.getInt(0) != DictionaryCompiler.MAGIC || buffer.getInt(4) != DictionaryCompiler.VERSION) {
+      throw new IllegalArgumentException("Not a compiled dictionary of version " + DictionaryCompiler.VERSION);
+    }
+    this.buffer = buffer;
+    this.wordCount = buffer.getInt(8);
+    int slotCount = buffer.getInt(12);
+    this.slotMask = slotCount - 1;
+    this.blobStart = DictionaryCompiler.HEADER_BYTES + slotCount * 4;
+    this.suggestionRules = suggestionRules;
+  }
+
+  /**
+   * Open the compiled dictionary of a classpath resource, such as
+   * "/dictionaries/vi_VN", with the suggestion tables of its .aff file. The
+   * dictionary is mapped once per JVM and shared.
+   *
+   * @param resourceBase Resource path without extension.
+   * @return
+   */
+  public static MappedDictionary forResource(String resourceBase) {
+    return OPENED.computeIfAbsent(resourceBase, base -> {
+      try {
+        return open(base);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Cannot open dictionary " + base, e);
+      }
+    });
+  }
+
+  /**
+   * Map a compiled dictionary file.
+   *
+   * @param file
+   * @param suggestionRules
+   * @return
+   * @throws IOException
+   */
+  public static MappedDictionary map(Path file, SuggestionRules suggestionRules) throws IOException {
+    try (FileChannel channel = FileChannel.open(file)) {
+      return new MappedDictionary(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), suggestionRules);
+    }
+  }
+
+  private static MappedDictionary open(String resourceBase) throws IOException {
+    SuggestionRules suggestionRules = SuggestionRules.EMPTY;
+    try (InputStream affStream = MappedDictionary.class.getResourceAsStream(resourceBase + ".aff")) {
+      if (affStream != null) {
+        suggestionRules = SuggestionRules.parse(affStream);
+      }
+    }
+
+    URL compiled = MappedDictionary.class.getResource(resourceBase + DictionaryCompiler.FILE_EXTENSION);
+    if (compiled == null) {
+      // Not built by the compileDictionaries task (e.g. run from an IDE)
+      log.warn("Compiled dictionary {}{} not found, compiling {}.dic in memory", resourceBase,
+          DictionaryCompiler.FILE_EXTENSION, resourceBase);
+      try (InputStream dicStream = MappedDictionary.class.getResourceAsStream(resourceBase + ".dic")) {
+        if (dicStream == null) {
+          throw new IOException("Dictionary resource not found: " + resourceBase);
+        }
+        return new MappedDictionary(ByteBuffer.wrap(DictionaryCompiler.compile(dicStream)), suggestionRules);
+      }
+    }
+    if ("file".equals(compiled.getProtocol())) {
+      try {
+        return map(Path.of(compiled.toURI()), suggestionRules);
+      } catch (URISyntaxException e) {
+        throw new IOException(e);
+      }
+    }
+    return map(extract(compiled, resourceBase), suggestionRules);
+  }
+
+  /**
+   * Copy a dictionary packaged inside the jar to the data directory so it can
+   * be mapped. An extracted copy with the same SHA-256 is reused, so a copy
+   * left by another release is replaced even if its size is unchanged.
+   */
+  private static Path extract(URL compiled, String resourceBase) throws IOException {
+    Path dataDir = Path.of(System.getProperty(DATA_DIR_PROPERTY,
+        Path.of(System.getProperty("java.io.tmpdir"), "articlecheck-dictionaries").toString()));
+    Files.createDirectories(dataDir);
+    Path target = dataDir.resolve(Path.of(resourceBase).getFileName() + DictionaryCompiler.FILE_EXTENSION);
+
+    byte[] packagedHash;
+    try (InputStream inputStream = compiled.openStream()) {
+      packagedHash = sha256(inputStream);
+    }
+    if (Files.exists(target)) {
+      try (InputStream inputStream = Files.newInputStream(target)) {
+        if (MessageDigest.isEqual(packagedHash, sha256(inputStream))) {
+          return target;
+        }
+      }
+    }
+    Path temp = Files.createTempFile(dataDir, "dictionary", ".tmp");
+    try (InputStream inputStream = compiled.openStream()) {
+      Files.copy(inputStream, temp, StandardCopyOption.REPLACE_EXISTING);
+    }
+    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    log.info("Extracted dictionary {} to {}", resourceBase, target);
+    return target;
+  }
+
+  private static byte[] sha256(InputStream inputStream) throws IOException {
+    MessageDigest digest = HashUtil.newSha256();
+    byte[] chunk = new byte[64 * 1024];
+    int read;
+    while ((read = inputStream.read(chunk)) != -1) {
+      digest.update(chunk, 0, read);
+    }
+    return digest.digest();
+  }
+
+  /**
+   * Check if the exact word is in the dictionary.
+   *
+   * @param word NFC-normalized word.
+   * @return
+   */
+  public boolean contains(String word) {
+    byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+    int slot = DictionaryCompiler.hash(bytes) & slotMask;
+    while (true) {
+      int entry = buffer.getInt(DictionaryCompiler.HEADER_BYTES + slot * 4);
+      if (entry == 0) {
+        return false;
+      }
+      if (equalsAt(blobStart + entry - 1, bytes)) {
+        return true;
+      }
+      slot = (slot + 1) & slotMask;
+    }
+  }
+
+  /**
+   * Suggest dictionary words for a misspelled word, generated from the word
+   * by the suggestion tables of the affix file.
+   *
+   * @param word  NFC-normalized word.
+   * @param limit
+   * @return Suggestions, most likely first.
+   */
+  public List<String> suggest(String word, int limit) {
+    return suggestionRules.suggest(word, this::contains, limit);
+  }
+
+  /**
+   * Get the number of words.
+   *
+   * @return
+   */
+  public int getWordCount() {
+    return wordCount;
+  }
+
+  private boolean equalsAt(int position, byte[] bytes) {
+    if (Short.toUnsignedInt(buffer.getShort(position)) != bytes.length) {
+      return false;
+    }
+    for (int i = 0; i < bytes.length; i++) {
+      if (buffer.get(position + 2 + i) != bytes[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
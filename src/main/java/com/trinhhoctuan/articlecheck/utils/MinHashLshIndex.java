@@ -0,0 +1,158 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Locality-sensitive hashing index over MinHash signatures of character
+ * shingles. Texts whose shingle sets have a high Jaccard similarity share at
+ * least one band of their signatures with high probability, so a lookup only
+ * returns a handful of candidates to score exactly instead of every entry.
+ *
+ * With b bands of r rows, two texts with shingle similarity s become
+ * candidates with probability 1 - (1 - s^r)^b.
+ *
+ * Band keys are kept in a LongPostingTable of one column, the entry id, so
+ * an entry costs 29 to 51 bytes per band before array growth slack, against
+ * well over 100 bytes per band for a HashMap of boxed longs to posting
+ * objects.
+ */
+public class MinHashLshIndex {
+  private static final long SEED = 0x5DEECE66DL;
+  private static final int ID = 0;
+
+  private final int bands;
+  private final int rows;
+  private final int shingleSize;
+  private final long[] hashSeeds;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final LongPostingTable table = new LongPostingTable(1);
+  private int size;
+
+  public MinHashLshIndex(int bands, int rows, int shingleSize) {
+    if (bands <= 0 || rows <= 0 || shingleSize <= 0) {
+      throw new IllegalArgumentException("Bands, rows and shingle size must be positive");
+    }
+    this.bands = bands;
+    this.rows = rows;
+    this.shingleSize = shingleSize;
+    // Fixed seeds keep signatures comparable across restarts
+    this.hashSeeds = new long[bands * rows];
+    long seed = SEED;
+    for (int i = 0; i < hashSeeds.length; i++) {
+      seed = HashUtil.mix(seed + i);
+      hashSeeds[i] = seed | 1;
+    }
+  }
+
+  /**
+   * Compute the MinHash signature of a text over its lowercased character
+   * shingles, with runs of whitespace collapsed.
+   *
+   * @param text
+   * @return
+   */
+  public long[] signature(String text) {
+    String normalized = text.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ").strip();
+    long[] signature = new long[hashSeeds.length];
+    Arrays.fill(signature, Long.MAX_VALUE);
+    int shingles = Math.max(1, normalized.length() - shingleSize + 1);
+    for (int start = 0; start < shingles; start++) {
+      long shingle = HashUtil.hash64(normalized, start, Math.min(normalized.length(), start + shingleSize));
+      for (int i = 0; i < hashSeeds.length; i++) {
+        long value = HashUtil.mix(shingle * hashSeeds[i]);
+        if (value < signature[i]) {
+          signature[i] = value;
+        }
+      }
+    }
+    return signature;
+  }
+
+  /**
+   * Compute the LSH band keys of a signature, one per band.
+   *
+   * @param signature
+   * @return
+   */
+  public long[] bandKeys(long[] signature) {
+    long[] keys = new long[bands];
+    for (int band = 0; band < bands; band++) {
+      long key = HashUtil.mix(band + 1L);
+      for (int row = band * rows; row < (band + 1) * rows; row++) {
+        key = HashUtil.mix(key ^ signature[row]);
+      }
+      keys[band] = key;
+    }
+    return keys;
+  }
+
+  /**
+   * Add an entry by its band keys.
+   *
+   * @param id
+   * @param bandKeys
+   */
+  public void add(int id, long[] bandKeys) {
+    lock.writeLock().lock();
+    try {
+      table.ensureCapacity(bandKeys.length);
+      for (long key : bandKeys) {
+        table.set(table.add(key), ID, id);
+      }
+      size++;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Find the entries sharing at least one band key.
+   *
+   * @param bandKeys
+   * @return Distinct entry ids in ascending order.
+   */
+  public int[] candidates(long[] bandKeys) {
+    int[] candidates = new int[16];
+    int count = 0;
+    lock.readLock().lock();
+    try {
+      for (long key : bandKeys) {
+        for (int posting = table.head(key); posting != LongPostingTable.NO_POSTING; posting = table.next(posting)) {
+          if (count == candidates.length) {
+            candidates = Arrays.copyOf(candidates, count * 2);
+          }
+          candidates[count++] = table.get(posting, ID);
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    return Arrays.stream(candidates, 0, count).sorted().distinct().toArray();
+  }
+
+  /**
+   * Get the number of bands.
+   *
+   * @return
+   */
+  public int getBands() {
+    return bands;
+  }
+
+  /**
+   * Get the number of indexed entries.
+   *
+   * @return
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return size;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+import java.util.List;
+
+/**
+ * A partition of the winnowing fingerprint index holding the fingerprints of
+ * one hash range, hosted in this process or on another node. Documents are
+ * identified by a key that is the same on every node: the essay id of essays
+ * and a negative hash for other reference texts.
+ */
+public interface PlagiarismIndexShard {
+    /**
+     * A reference document of the index.
+     *
+     * @param document The document key.
+     */
+    public record Source(long document, String sourceName, String sourceUrl) {
+        /**
+         * Get the essay the document was taken from, or 0.
+         *
+         * @return
+         */
+        public long essayId() {
+            return document > 0 ? document : 0;
+        }
+    }
+
+    /**
+     * Occurrences of looked up fingerprints: the i-th posting is an occurrence
+     * of hash number fingerprints[i] of the lookup, in the source number
+     * documents[i], at offsets[i].
+     */
+    public record Postings(List<Source> sources, int[] fingerprints, int[] documents, int[] offsets) {
+        public static final Postings EMPTY = new Postings(List.of(), new int[0], new int[0], new int[0]);
+
+        public int size() {
+            return fingerprints.length;
+        }
+    }
+
+    /**
+     * Add the fingerprints of a document that fall in this shard's hash range.
+     * Documents already added are ignored, so adding is idempotent.
+     *
+     * @param source
+     * @param hashes
+     * @param offsets
+     */
+    public void add(Source source, long[] hashes, int[] offsets);
+
+    /**
+     * Look up the occurrences of fingerprints of this shard's hash range.
+     * Fingerprints with more occurrences than the limit are skipped as
+     * boilerplate.
+     *
+     * @param hashes
+     * @param maxOccurrences
+     * @return
+     */
+    public Postings lookup(long[] hashes, int maxOccurrences);
+
+    /**
+     * Get the number of stored fingerprint occurrences.
+     *
+     * @return
+     */
+    public long size();
+}
@@ -0,0 +1,62 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builder of {@link PlagiarismIndexShard.Postings} that lists every source
+ * once, so postings gathered from several shards can be merged.
+ */
+public class PostingsBuilder {
+  private final List<PlagiarismIndexShard.Source> sources = new ArrayList<>();
+  private final Map<Long, Integer> sourceIndexes = new HashMap<>();
+  private int[] fingerprints = new int[64];
+  private int[] documents = new int[64];
+  private int[] offsets = new int[64];
+  private int size;
+
+  /**
+   * Add an occurrence of a fingerprint.
+   *
+   * @param fingerprint The number of the looked up hash.
+   * @param source
+   * @param offset
+   */
+  public void add(int fingerprint, PlagiarismIndexShard.Source source, int offset) {
+    if (size == fingerprints.length) {
+      fingerprints = Arrays.copyOf(fingerprints, size * 2);
+      documents = Arrays.copyOf(documents, size * 2);
+      offsets = Arrays.copyOf(offsets, size * 2);
+    }
+    Integer document = sourceIndexes.get(source.document());
+    if (document == null) {
+      document = sources.size();
+      sources.add(source);
+      sourceIndexes.put(source.document(), document);
+    }
+    fingerprints[size] = fingerprint;
+    documents[size] = document;
+    offsets[size++] = offset;
+  }
+
+  /**
+   * Add the postings of a lookup of some of the hashes.
+   *
+   * @param postings
+   * @param fingerprintNumbers The number of each hash of that lookup.
+   */
+  public void addAll(PlagiarismIndexShard.Postings postings, int[] fingerprintNumbers) {
+    for (int i = 0; i < postings.size(); i++) {
+      add(fingerprintNumbers[postings.fingerprints()[i]], postings.sources().get(postings.documents()[i]),
+          postings.offsets()[i]);
+    }
+  }
+
+  public PlagiarismIndexShard.Postings build() {
+    return new PlagiarismIndexShard.Postings(List.copyOf(sources), Arrays.copyOf(fingerprints, size),
+        Arrays.copyOf(documents, size), Arrays.copyOf(offsets, size));
+  }
+}
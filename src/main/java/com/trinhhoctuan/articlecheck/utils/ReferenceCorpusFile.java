@@ -0,0 +1,337 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only file of reference documents for plagiarism checks. Each
+ * document stores its sentences with their LSH band keys and its winnowing
+ * fingerprints, so the indexes can be rebuilt on open without re-reading or
+ * re-hashing the source texts. The file
+ * is memory-mapped in segments of whole records; appended records are mapped
+ * as new segments.
+ *
+ * <pre>
+ * header:   int magic, int version, int bands, int rows, int shingleSize,
+ *           int kgramLength, int windowSize
+ * document: int recordLength, long essayId, string sourceName,
+ *           string sourceUrl, int sentenceCount,
+ *           per sentence: long[bands] bandKeys, string text,
+ *           int fingerprintCount, long[fingerprintCount] fingerprints,
+ *           int[fingerprintCount] fingerprintOffsets
+ * string:   int byteLength (-1 for null) followed by UTF-8 bytes
+ * </pre>
+ */
+@Slf4j
+public class ReferenceCorpusFile implements Closeable {
+  public static final int MAGIC = 0x52434f52;
+  public static final int VERSION = 2;
+  private static final int HEADER_BYTES = 28;
+  private static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+  private final Path path;
+  private final FileChannel channel;
+  private final int bands;
+  private final boolean bandKeysCompatible;
+  private final boolean fingerprintsCompatible;
+  // Mapped segments by their start position in the file
+  private final ConcurrentSkipListMap<Long, MappedByteBuffer> segments = new ConcurrentSkipListMap<>();
+  private long size;
+
+  /**
+   * A stored document.
+   *
+   * @param essayId            The essay the document was taken from, or 0.
+   * @param sourceName
+   * @param sourceUrl
+   * @param bandKeys           Band keys of the sentences, or null if they were
+   *                           computed with other LSH parameters.
+   * @param textPositions      Positions of the sentence texts, for
+   *                           {@link ReferenceCorpusFile#readText(long)}.
+   * @param fingerprints       Winnowing fingerprints, or null if they were
+   *                           selected with other winnowing parameters.
+   * @param fingerprintOffsets Offsets of the fingerprints in the document.
+   */
+  public record StoredDocument(long essayId, String sourceName, String sourceUrl, List<long[]> bandKeys,
+      long[] textPositions, long[] fingerprints, int[] fingerprintOffsets) {
+  }
+
+  private ReferenceCorpusFile(Path path, FileChannel channel, int bands, boolean bandKeysCompatible,
+      boolean fingerprintsCompatible) throws IOException {
+    this.path = path;
+    this.channel = channel;
+    this.bands = bands;
+    this.bandKeysCompatible = bandKeysCompatible;
+    this.fingerprintsCompatible = fingerprintsCompatible;
+    mapExistingRecords();
+  }
+
+  /**
+   * Open a corpus file, creating it if missing. Band keys and fingerprints
+   * stored with other parameters are reported as missing so the caller
+   * recomputes them from the sentence texts.
+   *
+   * @param path
+   * @param bands
+   * @param rows
+   * @param shingleSize
+   * @param kgramLength
+   * @param windowSize
+   * @return
+   * @throws IOException
+   */
+  public static ReferenceCorpusFile open(Path path, int bands, int rows, int shingleSize, int kgramLength,
+      int windowSize) throws IOException {
+    if (path.getParent() != null) {
+      Files.createDirectories(path.getParent());
+    }
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    try {
+      if (channel.size() == 0) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+            .putInt(MAGIC).putInt(VERSION).putInt(bands).putInt(rows).putInt(shingleSize)
+            .putInt(kgramLength).putInt(windowSize)
+            .flip();
+        channel.write(header, 0);
+        channel.force(true);
+      }
+
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+      channel.read(header, 0);
+      header.flip();
+      if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION) {
+        throw new IOException("Not a reference corpus file of version " + VERSION + ": " + path);
+      }
+      int fileBands = header.getInt();
+      boolean bandKeysCompatible = fileBands == bands && header.getInt() == rows
+          && header.getInt() == shingleSize;
+      boolean fingerprintsCompatible = header.getInt() == kgramLength && header.getInt() == windowSize;
+      if (!bandKeysCompatible) {
+        log.warn("Reference corpus {} was indexed with other LSH parameters, band keys will be recomputed", path);
+      }
+      if (!fingerprintsCompatible) {
+        log.warn("Reference corpus {} was fingerprinted with other winnowing parameters, "
+            + "fingerprints will be recomputed", path);
+      }
+      return new ReferenceCorpusFile(path, channel, fileBands, bandKeysCompatible, fingerprintsCompatible);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Visit all stored documents in the order they were added.
+   *
+   * @param visitor
+   */
+  public void forEachDocument(Consumer<StoredDocument> visitor) {
+    for (Map.Entry<Long, MappedByteBuffer> segment : segments.entrySet()) {
+      ByteBuffer buffer = segment.getValue().duplicate();
+      if (segment.getKey() == 0) {
+        buffer.position(HEADER_BYTES);
+      }
+      while (buffer.hasRemaining()) {
+        int recordLength = buffer.getInt();
+        int recordEnd = buffer.position() + recordLength;
+        long essayId = buffer.getLong();
+        String sourceName = readString(buffer);
+        String sourceUrl = readString(buffer);
+        int sentenceCount = buffer.getInt();
+        List<long[]> bandKeys = bandKeysCompatible ? new ArrayList<>(sentenceCount) : null;
+        long[] textPositions = new long[sentenceCount];
+        for (int i = 0; i < sentenceCount; i++) {
+          if (bandKeys != null) {
+            long[] keys = new long[bands];
+            buffer.asLongBuffer().get(keys);
+            bandKeys.add(keys);
+          }
+          buffer.position(buffer.position() + bands * Long.BYTES);
+          textPositions[i] = segment.getKey() + buffer.position();
+          skipString(buffer);
+        }
+        int fingerprintCount = buffer.getInt();
+        long[] fingerprints = null;
+        int[] fingerprintOffsets = null;
+        if (fingerprintsCompatible) {
+          fingerprints = new long[fingerprintCount];
+          fingerprintOffsets = new int[fingerprintCount];
+          buffer.asLongBuffer().get(fingerprints);
+          buffer.position(buffer.position() + fingerprintCount * Long.BYTES);
+          buffer.asIntBuffer().get(fingerprintOffsets);
+        }
+        buffer.position(recordEnd);
+        visitor.accept(new StoredDocument(essayId, sourceName, sourceUrl, bandKeys, textPositions, fingerprints,
+            fingerprintOffsets));
+      }
+    }
+  }
+
+  /**
+   * Append a document, write it through to disk and map it.
+   *
+   * @param essayId    The essay the document was taken from, or 0.
+   * @param sourceName
+   * @param sourceUrl
+   * @param sentences
+   * @param bandKeys           Band keys of the sentences.
+   * @param fingerprints       Winnowing fingerprints of the document.
+   * @param fingerprintOffsets Offsets of the fingerprints in the document.
+   * @return Positions of the sentence texts.
+   * @throws IOException
+   */
+  public synchronized long[] append(long essayId, String sourceName, String sourceUrl, List<String> sentences,
+      List<long[]> bandKeys, long[] fingerprints, int[] fingerprintOffsets) throws IOException {
+    byte[] name = encode(sourceName);
+    byte[] url = encode(sourceUrl);
+    byte[][] texts = new byte[sentences.size()][];
+    int recordLength = Long.BYTES + stringLength(name) + stringLength(url) + Integer.BYTES;
+    for (int i = 0; i < texts.length; i++) {
+      texts[i] = encode(sentences.get(i));
+      recordLength += bands * Long.BYTES + stringLength(texts[i]);
+    }
+    // Fingerprints of other winnowing parameters are recomputed on every open
+    int fingerprintCount = fingerprintsCompatible ? fingerprints.length : 0;
+    recordLength += Integer.BYTES + fingerprintCount * (Long.BYTES + Integer.BYTES);
+
+    ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + recordLength);
+    record.putInt(recordLength).putLong(essayId);
+    putString(record, name);
+    putString(record, url);
+    record.putInt(texts.length);
+    long[] textPositions = new long[texts.length];
+    for (int i = 0; i < texts.length; i++) {
+      // Keys of other LSH parameters are recomputed on every open anyway
+      long[] keys = bandKeysCompatible ? bandKeys.get(i) : new long[bands];
+      for (int band = 0; band < bands; band++) {
+        record.putLong(keys[band]);
+      }
+      textPositions[i] = size + record.position();
+      putString(record, texts[i]);
+    }
+    record.putInt(fingerprintCount);
+    for (int i = 0; i < fingerprintCount; i++) {
+      record.putLong(fingerprints[i]);
+    }
+    for (int i = 0; i < fingerprintCount; i++) {
+      record.putInt(fingerprintOffsets[i]);
+    }
+    record.flip();
+
+    long start = size;
+    while (record.hasRemaining()) {
+      channel.write(record, start + record.position());
+    }
+    channel.force(false);
+    segments.put(start, channel.map(FileChannel.MapMode.READ_ONLY, start, record.capacity()));
+    size = start + record.capacity();
+    return textPositions;
+  }
+
+  /**
+   * Read a sentence text stored at the given position.
+   *
+   * @param position
+   * @return
+   */
+  public String readText(long position) {
+    Map.Entry<Long, MappedByteBuffer> segment = segments.floorEntry(position);
+    ByteBuffer buffer = segment.getValue().duplicate();
+    buffer.position((int) (position - segment.getKey()));
+    return readString(buffer);
+  }
+
+  /**
+   * Get the file size in bytes.
+   *
+   * @return
+   */
+  public synchronized long getSize() {
+    return size;
+  }
+
+  @Override
+  public void close() throws IOException {
+    log.debug("Closing reference corpus {}", path);
+    channel.close();
+  }
+
+  /**
+   * Map the complete records of the file in segments of whole records, and
+   * drop a trailing record cut short by a crash during an append.
+   */
+  private void mapExistingRecords() throws IOException {
+    long fileSize = channel.size();
+    long segmentStart = 0;
+    long position = HEADER_BYTES;
+    ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+    while (position + Integer.BYTES <= fileSize) {
+      length.clear();
+      channel.read(length, position);
+      length.flip();
+      int recordLength = length.getInt();
+      long recordEnd = position + Integer.BYTES + recordLength;
+      if (recordLength <= 0 || recordEnd > fileSize) {
+        break;
+      }
+      if (recordEnd - segmentStart > MAX_SEGMENT_BYTES && position > segmentStart) {
+        segments.put(segmentStart, channel.map(FileChannel.MapMode.READ_ONLY, segmentStart, position - segmentStart));
+        segmentStart = position;
+      }
+      position = recordEnd;
+    }
+    segments.put(segmentStart, channel.map(FileChannel.MapMode.READ_ONLY, segmentStart, position - segmentStart));
+
+    if (position < fileSize) {
+      log.warn("Truncating incomplete record at {} of reference corpus {}", position, path);
+      channel.truncate(position);
+    }
+    size = position;
+  }
+
+  private static byte[] encode(String value) {
+    return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static int stringLength(byte[] bytes) {
+    return Integer.BYTES + (bytes == null ? 0 : bytes.length);
+  }
+
+  private static void putString(ByteBuffer buffer, byte[] bytes) {
+    if (bytes == null) {
+      buffer.putInt(-1);
+    } else {
+      buffer.putInt(bytes.length).put(bytes);
+    }
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void skipString(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    buffer.position(buffer.position() + Math.max(0, length));
+  }
+}
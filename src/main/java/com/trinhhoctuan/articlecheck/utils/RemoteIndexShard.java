@@ -0,0 +1,78 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+import java.time.Duration;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.trinhhoctuan.articlecheck.dtos.ShardAddRequest;
+import com.trinhhoctuan.articlecheck.dtos.ShardLookupRequest;
+
+/**
+ * Shard of the fingerprint index hosted by another node, reached through
+ * its PlagiarismShardController.
+ */
+public class RemoteIndexShard implements PlagiarismIndexShard {
+  public static final String TOKEN_HEADER = "X-Shard-Token";
+
+  private final WebClient webClient;
+  private final String shardUri;
+  private final String token;
+  private final Duration timeout;
+
+  /**
+   * @param baseUrl The base URL of the node hosting the shard.
+   * @param shard   The number of the shard.
+   * @param token   The token shared by the nodes.
+   * @param timeout
+   */
+  public RemoteIndexShard(String baseUrl, int shard, String token, Duration timeout) {
+    this.webClient = WebClient.builder()
+        .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(64 * 1024 * 1024))
+        .build();
+    this.shardUri = baseUrl.replaceAll("/+$", "") + "/internal/plagiarism/shards/" + shard;
+    this.token = token;
+    this.timeout = timeout;
+  }
+
+  @Override
+  public void add(Source source, long[] hashes, int[] offsets) {
+    webClient.post()
+        .uri(shardUri + "/documents")
+        .header(TOKEN_HEADER, token)
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(ShardAddRequest.builder().source(source).hashes(hashes).offsets(offsets).build())
+        .retrieve()
+        .toBodilessEntity()
+        .block(timeout);
+  }
+
+  @Override
+  public Postings lookup(long[] hashes, int maxOccurrences) {
+    Postings postings = webClient.post()
+        .uri(shardUri + "/lookup")
+        .header(TOKEN_HEADER, token)
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(ShardLookupRequest.builder().hashes(hashes).maxOccurrences(maxOccurrences).build())
+        .retrieve()
+        .bodyToMono(Postings.class)
+        .block(timeout);
+    return postings != null ? postings : Postings.EMPTY;
+  }
+
+  @Override
+  public long size() {
+    Long size = webClient.get()
+        .uri(shardUri + "/size")
+        .header(TOKEN_HEADER, token)
+        .retrieve()
+        .bodyToMono(Long.class)
+        .block(timeout);
+    return size != null ? size : 0;
+  }
+
+  @Override
+  public String toString() {
+    return shardUri;
+  }
+}
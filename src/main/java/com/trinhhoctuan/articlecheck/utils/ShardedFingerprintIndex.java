@@ -0,0 +1,194 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Winnowing fingerprint index partitioned by hash range into shards, which
+ * may be hosted in this process or on other nodes. Fingerprints of a document
+ * are sent to the shards owning their hashes, and a lookup is scattered to
+ * the shards owning the looked up hashes, queried in parallel, and the
+ * postings gathered into one result. Winnowing keeps window minima, which
+ * crowd the low end of the hash range, so hashes are mixed again before they
+ * are mapped to ranges; each of n shards then holds about 1/n of the
+ * fingerprints and capacity grows with the number of nodes hosting shards.
+ */
+@Slf4j
+public class ShardedFingerprintIndex implements Closeable {
+  private final List<PlagiarismIndexShard> shards;
+  private final ExecutorService executor;
+
+  /**
+   * Hashes of a request that fall in one shard's range.
+   *
+   * @param numbers Their numbers in the request.
+   */
+  private record Partition(long[] hashes, int[] offsets, int[] numbers) {
+  }
+
+  /**
+   * @param shards   The shards in hash range order.
+   * @param executor The executor the shards are queried on.
+   */
+  public ShardedFingerprintIndex(List<PlagiarismIndexShard> shards, ExecutorService executor) {
+    if (shards.isEmpty()) {
+      throw new IllegalArgumentException("At least one shard is required");
+    }
+    this.shards = List.copyOf(shards);
+    this.executor = executor;
+  }
+
+  /**
+   * Get the shard owning a hash: the range of mixed hashes is divided into
+   * equal ranges by their upper 32 bits.
+   *
+   * @param hash
+   * @param shardCount
+   * @return
+   */
+  public static int shardOf(long hash, int shardCount) {
+    return (int) (((HashUtil.mix(hash) >>> 32) * shardCount) >>> 32);
+  }
+
+  /**
+   * Send the fingerprints of a document to the shards owning them.
+   *
+   * @param source
+   * @param hashes
+   * @param offsets
+   */
+  public void add(PlagiarismIndexShard.Source source, long[] hashes, int[] offsets) {
+    Partition[] partitions = partition(hashes, offsets);
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    for (int shard = 0; shard < partitions.length; shard++) {
+      Partition partition = partitions[shard];
+      if (partition.hashes().length > 0) {
+        PlagiarismIndexShard target = shards.get(shard);
+        futures.add(run(() -> {
+          target.add(source, partition.hashes(), partition.offsets());
+          return null;
+        }));
+      }
+    }
+    try {
+      CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+    } catch (CompletionException e) {
+      throw new RuntimeException("Cannot add document " + source.document() + " to all shards", e.getCause());
+    }
+  }
+
+  /**
+   * Look up the occurrences of fingerprints in all shards. A shard that
+   * cannot be reached is skipped, so the result may miss its occurrences.
+   *
+   * @param hashes
+   * @param maxOccurrences Fingerprints with more occurrences are skipped.
+   * @return
+   */
+  public PlagiarismIndexShard.Postings lookup(long[] hashes, int maxOccurrences) {
+    Partition[] partitions = partition(hashes, new int[hashes.length]);
+    List<CompletableFuture<PlagiarismIndexShard.Postings>> futures = new ArrayList<>(partitions.length);
+    for (int shard = 0; shard < partitions.length; shard++) {
+      Partition partition = partitions[shard];
+      PlagiarismIndexShard target = shards.get(shard);
+      futures.add(partition.hashes().length == 0
+          ? CompletableFuture.completedFuture(PlagiarismIndexShard.Postings.EMPTY)
+          : run(() -> target.lookup(partition.hashes(), maxOccurrences)));
+    }
+
+    PostingsBuilder postings = new PostingsBuilder();
+    for (int shard = 0; shard < partitions.length; shard++) {
+      try {
+        postings.addAll(futures.get(shard).join(), partitions[shard].numbers());
+      } catch (CompletionException e) {
+        log.warn("Fingerprint index shard {} is unavailable: {}", shards.get(shard), e.getCause().getMessage());
+      }
+    }
+    return postings.build();
+  }
+
+  /**
+   * Get the shard of the given number if it is hosted in this process.
+   *
+   * @param shard
+   * @return The shard, or null.
+   */
+  public LocalIndexShard localShard(int shard) {
+    if (shard < 0 || shard >= shards.size()) {
+      return null;
+    }
+    return shards.get(shard) instanceof LocalIndexShard local ? local : null;
+  }
+
+  /**
+   * Get the number of fingerprint occurrences stored in the shards hosted in
+   * this process.
+   *
+   * @return
+   */
+  public long localSize() {
+    return shards.stream()
+        .filter(LocalIndexShard.class::isInstance)
+        .mapToLong(PlagiarismIndexShard::size)
+        .sum();
+  }
+
+  public int getShardCount() {
+    return shards.size();
+  }
+
+  @Override
+  public void close() throws IOException {
+    for (PlagiarismIndexShard shard : shards) {
+      if (shard instanceof LocalIndexShard local) {
+        local.close();
+      }
+    }
+  }
+
+  /**
+   * Run a shard call on the executor, or in the calling thread when there is
+   * only one shard.
+   */
+  private <T> CompletableFuture<T> run(Supplier<T> call) {
+    if (shards.size() == 1) {
+      try {
+        return CompletableFuture.completedFuture(call.get());
+      } catch (RuntimeException e) {
+        return CompletableFuture.failedFuture(e);
+      }
+    }
+    return CompletableFuture.supplyAsync(call, executor);
+  }
+
+  private Partition[] partition(long[] hashes, int[] offsets) {
+    int shardCount = shards.size();
+    int[] owners = new int[hashes.length];
+    int[] sizes = new int[shardCount];
+    for (int i = 0; i < hashes.length; i++) {
+      owners[i] = shardOf(hashes[i], shardCount);
+      sizes[owners[i]]++;
+    }
+    Partition[] partitions = new Partition[shardCount];
+    for (int shard = 0; shard < shardCount; shard++) {
+      partitions[shard] = new Partition(new long[sizes[shard]], new int[sizes[shard]], new int[sizes[shard]]);
+      sizes[shard] = 0;
+    }
+    for (int i = 0; i < hashes.length; i++) {
+      Partition partition = partitions[owners[i]];
+      int position = sizes[owners[i]]++;
+      partition.hashes()[position] = hashes[i];
+      partition.offsets()[position] = offsets[i];
+      partition.numbers()[position] = i;
+    }
+    return partitions;
+  }
+}
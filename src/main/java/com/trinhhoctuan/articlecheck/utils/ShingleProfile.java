@@ -0,0 +1,118 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * Sparse profile of the character 3-shingles of a text, as built by
+ * java-string-similarity's KShingling: runs of whitespace are collapsed to a
+ * single space and every 3-character substring is counted. Shingles are
+ * packed into longs (16 bits per char), so the profile is exact and two
+ * profiles are compared with one merge over their sorted shingles.
+ */
+public final class ShingleProfile {
+  public static final int SHINGLE_SIZE = 3;
+  private static final Pattern SPACES = Pattern.compile("\\s+");
+  private static final ShingleProfile EMPTY = new ShingleProfile(new long[0], new int[0]);
+
+  private final long[] shingles;
+  private final int[] counts;
+  private final double norm;
+
+  /**
+   * Cosine and Jaccard similarity of two profiles.
+   */
+  public record Similarity(double cosine, double jaccard) {
+    public double average() {
+      return (cosine + jaccard) / 2;
+    }
+  }
+
+  private ShingleProfile(long[] shingles, int[] counts) {
+    this.shingles = shingles;
+    this.counts = counts;
+    long sumOfSquares = 0;
+    for (int count : counts) {
+      sumOfSquares += (long) count * count;
+    }
+    this.norm = Math.sqrt(sumOfSquares);
+  }
+
+  /**
+   * Build the profile of a text.
+   *
+   * @param text
+   * @return
+   */
+  public static ShingleProfile of(String text) {
+    String normalized = SPACES.matcher(text).replaceAll(" ");
+    int shingleCount = normalized.length() - SHINGLE_SIZE + 1;
+    if (shingleCount <= 0) {
+      return EMPTY;
+    }
+
+    long[] packed = new long[shingleCount];
+    for (int i = 0; i < shingleCount; i++) {
+      packed[i] = ((long) normalized.charAt(i) << 32)
+          | ((long) normalized.charAt(i + 1) << 16)
+          | normalized.charAt(i + 2);
+    }
+    Arrays.sort(packed);
+
+    // Run-length encode the sorted shingles in place
+    int[] counts = new int[shingleCount];
+    int distinct = 0;
+    for (int i = 0; i < shingleCount; i++) {
+      if (distinct > 0 && packed[distinct - 1] == packed[i]) {
+        counts[distinct - 1]++;
+      } else {
+        packed[distinct] = packed[i];
+        counts[distinct++] = 1;
+      }
+    }
+    return new ShingleProfile(Arrays.copyOf(packed, distinct), Arrays.copyOf(counts, distinct));
+  }
+
+  /**
+   * Compute the cosine similarity of the shingle counts and the Jaccard
+   * similarity of the shingle sets in a single pass. Texts shorter than a
+   * shingle have a similarity of 0.
+   *
+   * @param other
+   * @return
+   */
+  public Similarity similarity(ShingleProfile other) {
+    if (shingles.length == 0 || other.shingles.length == 0) {
+      return new Similarity(0, 0);
+    }
+
+    long dotProduct = 0;
+    int common = 0;
+    int i = 0;
+    int j = 0;
+    while (i < shingles.length && j < other.shingles.length) {
+      int comparison = Long.compare(shingles[i], other.shingles[j]);
+      if (comparison == 0) {
+        dotProduct += (long) counts[i++] * other.counts[j++];
+        common++;
+      } else if (comparison < 0) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+
+    double cosine = dotProduct / (norm * other.norm);
+    double jaccard = (double) common / (shingles.length + other.shingles.length - common);
+    return new Similarity(cosine, jaccard);
+  }
+
+  /**
+   * Get the number of distinct shingles.
+   *
+   * @return
+   */
+  public int size() {
+    return shingles.length;
+  }
+}
@@ -0,0 +1,88 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Utility class for 64-bit SimHash (Charikar) fingerprints of texts. Texts
+ * that differ in a few words have fingerprints that differ in a few bits, so
+ * near-duplicates are found by the Hamming distance of their fingerprints.
+ */
+public class SimHash {
+  private static final int SHINGLE_WORDS = 3;
+
+  private SimHash() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  /**
+   * Compute the SimHash of a text over its lowercased 3-word shingles,
+   * weighted by their frequency.
+   *
+   * @param text
+   * @return
+   */
+  public static long of(String text) {
+    String normalized = Normalizer.normalize(text, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+    int[] weights = new int[Long.SIZE];
+    long[] window = new long[SHINGLE_WORDS];
+    int words = 0;
+    int i = 0;
+    int length = normalized.length();
+    while (i < length) {
+      while (i < length && !Character.isLetterOrDigit(normalized.charAt(i))) {
+        i++;
+      }
+      int start = i;
+      while (i < length && Character.isLetterOrDigit(normalized.charAt(i))) {
+        i++;
+      }
+      if (start == i) {
+        break;
+      }
+      window[words++ % SHINGLE_WORDS] = HashUtil.hash64(normalized, start, i);
+      if (words >= SHINGLE_WORDS) {
+        addFeature(weights, shingleHash(window, words));
+      }
+    }
+    if (words > 0 && words < SHINGLE_WORDS) {
+      addFeature(weights, shingleHash(window, words)); // Texts shorter than a shingle
+    }
+
+    long simHash = 0;
+    for (int bit = 0; bit < Long.SIZE; bit++) {
+      if (weights[bit] > 0) {
+        simHash |= 1L << bit;
+      }
+    }
+    return simHash;
+  }
+
+  /**
+   * Count the bits in which two fingerprints differ.
+   *
+   * @param a
+   * @param b
+   * @return
+   */
+  public static int distance(long a, long b) {
+    return Long.bitCount(a ^ b);
+  }
+
+  /**
+   * Hash the last words of the window in text order.
+   */
+  private static long shingleHash(long[] window, int words) {
+    long hash = 0;
+    for (int w = Math.max(0, words - SHINGLE_WORDS); w < words; w++) {
+      hash = HashUtil.mix(hash * 31 + window[w % SHINGLE_WORDS]);
+    }
+    return hash;
+  }
+
+  private static void addFeature(int[] weights, long feature) {
+    for (int bit = 0; bit < Long.SIZE; bit++) {
+      weights[bit] += ((feature >>> bit) & 1) == 1 ? 1 : -1;
+    }
+  }
+}
@@ -0,0 +1,202 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Suggestion tables of a Hunspell affix file (.aff): TRY characters, REP
+ * replacements and MAP groups of related characters. Suggestions are
+ * generated the way Hunspell does, by editing the misspelled word with
+ * these tables and keeping the edits that are dictionary words, so their
+ * cost depends on the length of the word and not on the dictionary size.
+ */
+public class SuggestionRules {
+  public static final SuggestionRules EMPTY = new SuggestionRules("", List.of(), List.of());
+
+  // At most this many positions of a word are changed by MAP groups at once
+  private static final int MAX_MAP_CHANGES = 2;
+
+  private final String tryChars;
+  private final List<Replacement> replacements;
+  private final List<List<String>> mapGroups;
+
+  /**
+   * A REP entry. Anchored patterns only match at the start or end of a word.
+   */
+  private record Replacement(String from, String to, boolean atStart, boolean atEnd) {
+  }
+
+  private SuggestionRules(String tryChars, List<Replacement> replacements, List<List<String>> mapGroups) {
+    this.tryChars = tryChars;
+    this.replacements = replacements;
+    this.mapGroups = mapGroups;
+  }
+
+  /**
+   * Read the suggestion tables of an affix file. Other directives are
+   * ignored.
+   *
+   * @param inputStream UTF-8 affix file.
+   * @return
+   * @throws IOException
+   */
+  public static SuggestionRules parse(InputStream inputStream) throws IOException {
+    String tryChars = "";
+    List<Replacement> replacements = new ArrayList<>();
+    List<List<String>> mapGroups = new ArrayList<>();
+    BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    String line;
+    while ((line = reader.readLine()) != null) {
+      String[] fields = Normalizer.normalize(line.strip(), Normalizer.Form.NFC).split("\\s+");
+      switch (fields[0]) {
+        case "TRY" -> tryChars = fields.length > 1 ? fields[1] : "";
+        // The first REP and MAP lines hold the entry counts
+        case "REP" -> {
+          if (fields.length >= 3) {
+            replacements.add(replacement(fields[1], fields[2]));
+          }
+        }
+        case "MAP" -> {
+          if (fields.length >= 2 && !fields[1].chars().allMatch(Character::isDigit)) {
+            mapGroups.add(mapGroup(fields[1]));
+          }
+        }
+        default -> {
+        }
+      }
+    }
+    return new SuggestionRules(tryChars, List.copyOf(replacements), List.copyOf(mapGroups));
+  }
+
+  /**
+   * Generate suggestions for a misspelled word, in Hunspell's order: REP
+   * replacements, MAP substitutions, then single-character edits with the
+   * TRY characters and splits into two words.
+   *
+   * @param word
+   * @param isWord Whether a candidate is a dictionary word.
+   * @param limit
+   * @return
+   */
+  public List<String> suggest(String word, Predicate<String> isWord, int limit) {
+    Set<String> suggestions = new LinkedHashSet<>();
+    Predicate<String> accept = candidate -> {
+      if (suggestions.size() < limit && !candidate.equals(word) && isWord.test(candidate)) {
+        suggestions.add(candidate);
+      }
+      return suggestions.size() >= limit;
+    };
+
+    if (replace(word, accept) || map(word, 0, MAX_MAP_CHANGES, accept)) {
+      return List.copyOf(suggestions);
+    }
+    for (int i = 0; i + 1 < word.length(); i++) {
+      if (accept.test(word.substring(0, i) + word.charAt(i + 1) + word.charAt(i) + word.substring(i + 2))) {
+        return List.copyOf(suggestions);
+      }
+    }
+    for (int i = 0; i < word.length(); i++) {
+      if (accept.test(word.substring(0, i) + word.substring(i + 1))) {
+        return List.copyOf(suggestions);
+      }
+    }
+    for (int i = 0; i <= word.length(); i++) {
+      for (int t = 0; t < tryChars.length(); t++) {
+        char c = tryChars.charAt(t);
+        boolean replaced = i < word.length() && word.charAt(i) != c
+            && accept.test(word.substring(0, i) + c + word.substring(i + 1));
+        if (replaced || accept.test(word.substring(0, i) + c + word.substring(i))) {
+          return List.copyOf(suggestions);
+        }
+      }
+    }
+    for (int i = 1; i < word.length(); i++) {
+      String left = word.substring(0, i);
+      String right = word.substring(i);
+      if (isWord.test(left) && isWord.test(right) && accept.test(left + " " + right)) {
+        break;
+      }
+    }
+    return List.copyOf(suggestions);
+  }
+
+  private boolean replace(String word, Predicate<String> accept) {
+    for (Replacement replacement : replacements) {
+      int from = replacement.from().length();
+      int index = word.indexOf(replacement.from());
+      while (index >= 0) {
+        if ((!replacement.atStart() || index == 0) && (!replacement.atEnd() || index + from == word.length())
+            && accept.test(word.substring(0, index) + replacement.to() + word.substring(index + from))) {
+          return true;
+        }
+        index = word.indexOf(replacement.from(), index + 1);
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Substitute members of MAP groups for each other, from the given position
+   * on and at up to the given number of positions.
+   */
+  private boolean map(String word, int start, int changes, Predicate<String> accept) {
+    if (changes == 0) {
+      return false;
+    }
+    for (int i = start; i < word.length(); i++) {
+      for (List<String> group : mapGroups) {
+        for (String member : group) {
+          if (!word.startsWith(member, i)) {
+            continue;
+          }
+          for (String other : group) {
+            if (other.equals(member)) {
+              continue;
+            }
+            String candidate = word.substring(0, i) + other + word.substring(i + member.length());
+            if (accept.test(candidate) || map(candidate, i + other.length(), changes - 1, accept)) {
+              return true;
+            }
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  private static Replacement replacement(String from, String to) {
+    boolean atStart = from.startsWith("^");
+    boolean atEnd = from.endsWith("$");
+    from = from.substring(atStart ? 1 : 0, from.length() - (atEnd ? 1 : 0));
+    return new Replacement(from.replace('_', ' '), to.replace('_', ' '), atStart, atEnd);
+  }
+
+  /**
+   * Split a MAP entry into its members: single characters, or strings in
+   * parentheses.
+   */
+  private static List<String> mapGroup(String entry) {
+    List<String> members = new ArrayList<>();
+    for (int i = 0; i < entry.length(); i++) {
+      int close = entry.charAt(i) == '(' ? entry.indexOf(')', i) : -1;
+      if (close > i) {
+        members.add(entry.substring(i + 1, close));
+        i = close;
+      } else {
+        int end = i + Character.charCount(entry.codePointAt(i));
+        members.add(entry.substring(i, end));
+        i = end - 1;
+      }
+    }
+    return List.copyOf(members);
+  }
+}
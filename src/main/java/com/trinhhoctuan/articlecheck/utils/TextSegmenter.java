@@ -0,0 +1,186 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utility class for splitting text into segments with exact character
+ * offsets.
+ */
+public class TextSegmenter {
+  // Vietnamese titles and place abbreviations, always followed by a name
+  private static final String[] TITLE_ABBREVIATIONS = {
+      "TP", "Tp", "TS", "ThS", "PGS", "GS", "BS", "KS", "CN", "NCS", "TT", "Th", "St", "Mr", "Mrs", "Dr" };
+  // Abbreviations that end a sentence when a capitalized word follows
+  private static final String[] TRAILING_ABBREVIATIONS = { "v.v", "vv", "etc" };
+
+  private TextSegmenter() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  /**
+   * Split text into paragraphs, one per non-blank line. Spans exclude the line
+   * terminators, so every offset maps straight back into the original text.
+   *
+   * @param text
+   * @return
+   */
+  public static List<TextSpan> paragraphs(String text) {
+    List<TextSpan> paragraphs = new ArrayList<>();
+    if (text == null) {
+      return paragraphs;
+    }
+
+    int start = 0;
+    int length = text.length();
+    while (start < length) {
+      int end = text.indexOf('\n', start);
+      if (end == -1) {
+        end = length;
+      }
+      int trimmedEnd = end > start && text.charAt(end - 1) == '\r' ? end - 1 : end;
+      if (!text.substring(start, trimmedEnd).isBlank()) {
+        paragraphs.add(new TextSpan(start, trimmedEnd));
+      }
+      start = end + 1;
+    }
+    return paragraphs;
+  }
+
+  /**
+   * Split a range of the text into sentences in a single pass. A sentence
+   * ends after a run of terminal punctuation followed by whitespace, or at a
+   * line break. A period after a title (TP., TS., ThS., PGS., GS., ...) or a
+   * name initial does not end a sentence, nor does "v.v." unless a capitalized
+   * word follows. A single capital letter is only an initial between parts
+   * of a name, so "điểm A. Sau đó" is split. Spans are trimmed of
+   * surrounding whitespace.
+   *
+   * @param text
+   * @param range
+   * @return
+   */
+  public static List<TextSpan> sentences(String text, TextSpan range) {
+    List<TextSpan> sentences = new ArrayList<>();
+    int start = range.start();
+    int i = range.start();
+    int end = range.end();
+    while (i < end) {
+      char c = text.charAt(i);
+      if (c == '\n') {
+        addTrimmed(sentences, text, start, i);
+        start = ++i;
+      } else if (isTerminator(c)) {
+        int j = i + 1;
+        while (j < end && (isTerminator(text.charAt(j)) || isCloser(text.charAt(j)))) {
+          j++;
+        }
+        boolean abbreviation = c == '.' && j == i + 1 && isAbbreviation(text, start, i, j, end);
+        if ((j == end || Character.isWhitespace(text.charAt(j))) && !abbreviation) {
+          addTrimmed(sentences, text, start, j);
+          start = j;
+        }
+        i = j;
+      } else {
+        i++;
+      }
+    }
+    addTrimmed(sentences, text, start, end);
+    return sentences;
+  }
+
+  /**
+   * Check if the period at the given position ends an abbreviation that
+   * continues the sentence, comparing the word before it in place.
+   */
+  private static boolean isAbbreviation(String text, int sentenceStart, int period, int next, int end) {
+    int wordStart = wordStart(text, sentenceStart, period);
+    int wordLength = period - wordStart;
+    if (wordLength == 0) {
+      return false;
+    }
+    if (wordLength == 1 && Character.isUpperCase(text.charAt(wordStart))) {
+      return isInitial(text, sentenceStart, wordStart, next, end);
+    }
+    for (String title : TITLE_ABBREVIATIONS) {
+      if (title.length() == wordLength && text.regionMatches(wordStart, title, 0, wordLength)) {
+        return true;
+      }
+    }
+    for (String abbreviation : TRAILING_ABBREVIATIONS) {
+      if (abbreviation.length() == wordLength && text.regionMatches(true, wordStart, abbreviation, 0, wordLength)) {
+        int following = skipWhitespace(text, next, end);
+        return following < end && !Character.isUpperCase(text.charAt(following));
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Check if a capital letter before a period is a name initial, as in
+   * "Nguyễn V. A." or "J. K. Rowling": it follows another initial, or the
+   * next word is a capitalized word or another initial and the previous
+   * word, if the sentence has one, is capitalized too. A capital letter after
+   * a lowercase word, as in "điểm A." or "phương án B.", ends the sentence.
+   */
+  private static boolean isInitial(String text, int sentenceStart, int letter, int next, int end) {
+    int previousEnd = letter;
+    while (previousEnd > sentenceStart && Character.isWhitespace(text.charAt(previousEnd - 1))) {
+      previousEnd--;
+    }
+    int previousStart = wordStart(text, sentenceStart, previousEnd);
+    if (previousEnd - previousStart == 2 && Character.isUpperCase(text.charAt(previousStart))
+        && text.charAt(previousStart + 1) == '.') {
+      return true;
+    }
+
+    int following = skipWhitespace(text, next, end);
+    if (following + 1 >= end || !Character.isUpperCase(text.charAt(following))
+        || !(Character.isLetter(text.charAt(following + 1)) || text.charAt(following + 1) == '.')) {
+      return false;
+    }
+    while (previousStart < previousEnd && !Character.isLetter(text.charAt(previousStart))) {
+      previousStart++;
+    }
+    return previousStart == previousEnd || Character.isUpperCase(text.charAt(previousStart));
+  }
+
+  /**
+   * Find the start of the word ending at the given position.
+   */
+  private static int wordStart(String text, int sentenceStart, int wordEnd) {
+    int wordStart = wordEnd;
+    while (wordStart > sentenceStart && !Character.isWhitespace(text.charAt(wordStart - 1))
+        && text.charAt(wordStart - 1) != '(') {
+      wordStart--;
+    }
+    return wordStart;
+  }
+
+  private static int skipWhitespace(String text, int position, int end) {
+    while (position < end && Character.isWhitespace(text.charAt(position))) {
+      position++;
+    }
+    return position;
+  }
+
+  private static boolean isTerminator(char c) {
+    return c == '.' || c == '!' || c == '?' || c == '\u2026';
+  }
+
+  private static boolean isCloser(char c) {
+    return c == '"' || c == '\'' || c == ')' || c == ']' || c == '\u201D' || c == '\u2019' || c == '\u00BB';
+  }
+
+  private static void addTrimmed(List<TextSpan> spans, String text, int start, int end) {
+    while (start < end && Character.isWhitespace(text.charAt(start))) {
+      start++;
+    }
+    while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+      end--;
+    }
+    if (start < end) {
+      spans.add(new TextSpan(start, end));
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+/**
+ * Half-open character range [start, end) within a text.
+ */
+public record TextSpan(int start, int end) {
+  public int length() {
+    return end - start;
+  }
+
+  public boolean contains(int position) {
+    return position >= start && position < end;
+  }
+
+  public String of(String text) {
+    return text.substring(start, end);
+  }
+}
@@ -0,0 +1,133 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+
+/**
+ * Document fingerprinting by winnowing (Schleimer, Wilkerson and Aiken, as
+ * used by MOSS). The text is normalized to lowercase letters and digits
+ * without diacritics, every k-gram is hashed with a rolling hash, and the
+ * minimum hash of each window of w consecutive k-grams is kept. Any passage
+ * shared by two texts whose normalized form is at least w + k - 1 chars long
+ * yields at least one common fingerprint, in a single O(n) pass.
+ */
+public class Winnowing {
+  private static final long BASE = 0x100000001b3L;
+  // Lowercase, diacritic-free form of the chars up to the Latin Extended
+  // Additional block, where all Vietnamese letters are
+  private static final char[] FOLDED = new char[0x1F00];
+
+  static {
+    for (char c = 0; c < FOLDED.length; c++) {
+      char folded = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD).charAt(0);
+      FOLDED[c] = Character.toLowerCase(folded);
+    }
+    FOLDED['\u0110'] = 'd'; // Đ
+    FOLDED['\u0111'] = 'd'; // đ
+  }
+
+  private final int kgramLength;
+  private final int windowSize;
+  private final long highestPower;
+
+  /**
+   * Selected fingerprints of a text, in text order.
+   *
+   * @param hashes Hashes of the selected k-grams.
+   * @param starts Start offsets of the k-grams in the original text.
+   * @param ends   End offsets (exclusive) of the k-grams in the original text.
+   */
+  public record Fingerprints(long[] hashes, int[] starts, int[] ends) {
+    public int size() {
+      return hashes.length;
+    }
+  }
+
+  public Winnowing(int kgramLength, int windowSize) {
+    if (kgramLength <= 0 || windowSize <= 0) {
+      throw new IllegalArgumentException("K-gram length and window size must be positive");
+    }
+    this.kgramLength = kgramLength;
+    this.windowSize = windowSize;
+    long power = 1;
+    for (int i = 1; i < kgramLength; i++) {
+      power *= BASE;
+    }
+    this.highestPower = power;
+  }
+
+  /**
+   * Select the fingerprints of a text.
+   *
+   * @param text
+   * @return
+   */
+  public Fingerprints fingerprint(String text) {
+    // Normalized chars with their offsets in the original text
+    char[] normalized = new char[text.length()];
+    int[] offsets = new int[text.length()];
+    int length = 0;
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (Character.isLetterOrDigit(c)) {
+        normalized[length] = c < FOLDED.length ? FOLDED[c] : Character.toLowerCase(c);
+        offsets[length++] = i;
+      }
+    }
+
+    int kgramCount = length - kgramLength + 1;
+    if (kgramCount <= 0) {
+      return new Fingerprints(new long[0], new int[0], new int[0]);
+    }
+
+    // Rolling hash of every k-gram, mixed so the minimum is well distributed
+    long[] kgramHashes = new long[kgramCount];
+    long rolling = 0;
+    for (int i = 0; i < length; i++) {
+      if (i >= kgramLength) {
+        rolling -= normalized[i - kgramLength] * highestPower;
+      }
+      rolling = rolling * BASE + normalized[i];
+      if (i >= kgramLength - 1) {
+        kgramHashes[i - kgramLength + 1] = HashUtil.mix(rolling);
+      }
+    }
+
+    // Sliding window minimum over a monotonic deque of k-gram indexes; the
+    // rightmost minimum is kept, and recorded once when it is first selected
+    int[] deque = new int[kgramCount];
+    int head = 0;
+    int tail = 0;
+    int lastSelected = -1;
+    int window = Math.min(windowSize, kgramCount);
+    long[] hashes = new long[kgramCount];
+    int[] starts = new int[kgramCount];
+    int[] ends = new int[kgramCount];
+    int count = 0;
+    for (int i = 0; i < kgramCount; i++) {
+      while (tail > head && kgramHashes[deque[tail - 1]] >= kgramHashes[i]) {
+        tail--;
+      }
+      deque[tail++] = i;
+      if (deque[head] <= i - window) {
+        head++;
+      }
+      if (i >= window - 1 && deque[head] != lastSelected) {
+        lastSelected = deque[head];
+        hashes[count] = kgramHashes[lastSelected];
+        starts[count] = offsets[lastSelected];
+        ends[count++] = offsets[lastSelected + kgramLength - 1] + 1;
+      }
+    }
+    return new Fingerprints(Arrays.copyOf(hashes, count), Arrays.copyOf(starts, count),
+        Arrays.copyOf(ends, count));
+  }
+
+  public int getKgramLength() {
+    return kgramLength;
+  }
+
+  public int getWindowSize() {
+    return windowSize;
+  }
+}
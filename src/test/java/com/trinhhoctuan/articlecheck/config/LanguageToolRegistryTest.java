@@ -0,0 +1,49 @@
+package com.trinhhoctuan.articlecheck.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LanguageToolRegistryTest {
+  private static final long INSTANCE_COST_MB = 100;
+
+  @Test
+  void usesTheDefaultLanguageWhenNoPoolCanBeEvicted() throws IOException {
+    // Room for the default pool only
+    LanguageToolRegistry registry = registry(INSTANCE_COST_MB, Duration.ofHours(1));
+
+    try (LanguageToolRegistry.PoolLease lease = registry.acquire("en")) {
+      assertThat(lease.getPool().getLanguageCode()).isEqualTo("vi");
+    }
+    assertThat(registry.getEstimatedMemoryMb()).isEqualTo(INSTANCE_COST_MB);
+  }
+
+  @Test
+  void evictsIdlePoolsPeriodicallyButKeepsTheDefaultAndLeasedPools() throws IOException {
+    LanguageToolRegistry registry = registry(10 * INSTANCE_COST_MB, Duration.ZERO);
+
+    try (LanguageToolRegistry.PoolLease lease = registry.acquire("en")) {
+      assertThat(lease.getPool().getLanguageCode()).isEqualTo("en");
+      registry.evictIdlePools();
+      assertThat(registry.getEstimatedMemoryMb()).isEqualTo(2 * INSTANCE_COST_MB);
+    }
+
+    registry.evictIdlePools();
+
+    assertThat(registry.getEstimatedMemoryMb()).isEqualTo(INSTANCE_COST_MB);
+    try (LanguageToolRegistry.PoolLease lease = registry.acquire("vi")) {
+      assertThat(lease.getPool().getLanguageCode()).isEqualTo("vi");
+    }
+  }
+
+  private static LanguageToolRegistry registry(long memoryBudgetMb, Duration idleTimeout) throws IOException {
+    return new LanguageToolRegistry("vi", List.of("vi", "en"), 1, Duration.ofSeconds(30), memoryBudgetMb,
+        INSTANCE_COST_MB, idleTimeout, new SimpleMeterRegistry());
+  }
+}
@@ -0,0 +1,91 @@
+package com.trinhhoctuan.articlecheck.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.trinhhoctuan.articlecheck.utils.LocalIndexShard;
+import com.trinhhoctuan.articlecheck.utils.ShardedFingerprintIndex;
+import com.trinhhoctuan.articlecheck.utils.ShingleProfile;
+
+class ReferenceCorpusTest {
+  private static final String FIRST = "Giáo dục là nền tảng của sự phát triển bền vững.";
+  private static final String SECOND = "Biến đổi khí hậu ảnh hưởng đến sản xuất nông nghiệp.";
+
+  @TempDir
+  Path directory;
+
+  private ExecutorService executor;
+  private ShardedFingerprintIndex fingerprintShards;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    executor = Executors.newSingleThreadExecutor();
+    fingerprintShards = new ShardedFingerprintIndex(List.of(new LocalIndexShard(null, 25, 20)), executor);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    fingerprintShards.close();
+    executor.shutdown();
+  }
+
+  @Test
+  void reusesCachedProfilesOfCandidates() throws IOException {
+    ReferenceCorpus corpus = open(100);
+    try {
+      corpus.addDocument(0, "Nguồn A", null, FIRST + " " + SECOND, List.of(FIRST, SECOND));
+
+      ReferenceCorpus.Candidate first = single(corpus.candidates(FIRST, deadline()));
+      ReferenceCorpus.Candidate again = single(corpus.candidates(FIRST, deadline()));
+
+      assertThat(first.text()).isEqualTo(FIRST);
+      assertThat(again.profile()).isSameAs(first.profile());
+      assertThat(first.profile().similarity(ShingleProfile.of(FIRST)).average()).isCloseTo(1, within(1e-9));
+    } finally {
+      corpus.close();
+    }
+  }
+
+  @Test
+  void rebuildsProfilesEvictedFromTheCache() throws IOException {
+    ReferenceCorpus corpus = open(1);
+    try {
+      corpus.addDocument(0, "Nguồn A", null, FIRST + " " + SECOND, List.of(FIRST, SECOND));
+
+      ReferenceCorpus.Candidate first = single(corpus.candidates(FIRST, deadline()));
+      single(corpus.candidates(SECOND, deadline()));
+      ReferenceCorpus.Candidate again = single(corpus.candidates(FIRST, deadline()));
+
+      assertThat(again.profile()).isNotSameAs(first.profile());
+      assertThat(again.profile().similarity(first.profile()).average()).isCloseTo(1, within(1e-9));
+    } finally {
+      corpus.close();
+    }
+  }
+
+  private ReferenceCorpus open(int profileCacheSize) throws IOException {
+    return new ReferenceCorpus(directory.resolve("corpus.bin").toString(), 32, 4, 5, profileCacheSize, 25, 20, 3,
+        20, 1, 0, fingerprintShards, executor);
+  }
+
+  private static ReferenceCorpus.Candidate single(List<ReferenceCorpus.Candidate> candidates) {
+    assertThat(candidates).hasSize(1);
+    return candidates.get(0);
+  }
+
+  private static long deadline() {
+    return System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+  }
+}
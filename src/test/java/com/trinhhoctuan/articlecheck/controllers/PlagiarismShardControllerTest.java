@@ -0,0 +1,94 @@
+package com.trinhhoctuan.articlecheck.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import com.trinhhoctuan.articlecheck.dtos.ShardAddRequest;
+import com.trinhhoctuan.articlecheck.dtos.ShardLookupRequest;
+import com.trinhhoctuan.articlecheck.utils.LocalIndexShard;
+import com.trinhhoctuan.articlecheck.utils.PlagiarismIndexShard;
+import com.trinhhoctuan.articlecheck.utils.ShardedFingerprintIndex;
+
+class PlagiarismShardControllerTest {
+  private static final String TOKEN = "shard-secret";
+
+  private ExecutorService executor;
+  private ShardedFingerprintIndex fingerprintShards;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    executor = Executors.newSingleThreadExecutor();
+    fingerprintShards = new ShardedFingerprintIndex(List.of(new LocalIndexShard(null, 25, 20)), executor);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    fingerprintShards.close();
+    executor.shutdown();
+  }
+
+  @Test
+  void closesTheApiWithoutAConfiguredToken() {
+    PlagiarismShardController controller = new PlagiarismShardController(fingerprintShards, "");
+
+    assertThat(controller.size(0, "").getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+    assertThat(controller.size(0, null).getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+    assertThat(controller.size(0, "anything").getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+  }
+
+  @Test
+  void closesTheApiWithABlankConfiguredToken() {
+    PlagiarismShardController controller = new PlagiarismShardController(fingerprintShards, "  ");
+
+    assertThat(controller.size(0, "  ").getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+    assertThat(controller.size(0, "").getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+  }
+
+  @Test
+  void rejectsMissingEmptyAndWrongTokens() {
+    PlagiarismShardController controller = new PlagiarismShardController(fingerprintShards, TOKEN);
+    ShardLookupRequest lookup = ShardLookupRequest.builder().hashes(new long[] { 1 }).maxOccurrences(10).build();
+
+    assertThat(controller.size(0, null).getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+    assertThat(controller.size(0, "").getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+    assertThat(controller.size(0, " ").getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+    assertThat(controller.size(0, TOKEN + "x").getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+    assertThat(controller.lookup(0, "wrong", lookup).getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+    assertThat(controller.addDocument(0, "", addRequest()).getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+    assertThat(fingerprintShards.localSize()).isZero();
+  }
+
+  @Test
+  void acceptsTheConfiguredToken() {
+    PlagiarismShardController controller = new PlagiarismShardController(fingerprintShards, TOKEN);
+
+    assertThat(controller.addDocument(0, TOKEN, addRequest()).getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(controller.size(0, TOKEN).getBody()).isEqualTo(2L);
+    assertThat(controller.size(1, TOKEN).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+  }
+
+  @Test
+  void rejectsAddRequestsWithoutASource() {
+    PlagiarismShardController controller = new PlagiarismShardController(fingerprintShards, TOKEN);
+    ShardAddRequest request = ShardAddRequest.builder().hashes(new long[] { 1 }).offsets(new int[] { 0 }).build();
+
+    assertThat(controller.addDocument(0, TOKEN, request).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+  }
+
+  private static ShardAddRequest addRequest() {
+    return ShardAddRequest.builder()
+        .source(new PlagiarismIndexShard.Source(1, "Essay 1", null))
+        .hashes(new long[] { 10, 20 })
+        .offsets(new int[] { 0, 5 })
+        .build();
+  }
+}
@@ -0,0 +1,100 @@
+package com.trinhhoctuan.articlecheck.services.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import com.trinhhoctuan.articlecheck.services.FileProcessingService;
+
+class FileProcessingServiceImplTest {
+  @TempDir
+  Path uploadDir;
+
+  private ExecutorService executor;
+  private FileProcessingServiceImpl service;
+
+  @BeforeEach
+  void setUp() {
+    executor = Executors.newSingleThreadExecutor();
+    service = new FileProcessingServiceImpl(uploadDir.toString(), executor, 1, 40, 10);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdown();
+  }
+
+  @Test
+  void storesUploadsByContent() throws IOException {
+    FileProcessingService.StoredFile stored = service.saveFileToSystem(upload("essay.txt", "Nội dung bài luận"));
+
+    assertThat(stored.created()).isTrue();
+    assertThat(stored.contentKey()).matches("[0-9a-f]{64}\\.txt");
+    assertThat(stored.path()).isEqualTo(service.getStoredFilePath(stored.contentKey()));
+    assertThat(Files.readString(stored.path())).isEqualTo("Nội dung bài luận");
+    assertThat(storedFiles()).containsExactly(stored.path());
+  }
+
+  @Test
+  void refersResubmissionsToTheStoredFileWithoutWritingIt() throws IOException {
+    FileProcessingService.StoredFile first = service.saveFileToSystem(upload("a.txt", "Cùng nội dung"));
+    Files.setLastModifiedTime(first.path(), FileTime.from(Instant.now().minus(Duration.ofDays(1))));
+
+    FileProcessingService.StoredFile second = service.saveFileToSystem(upload("b.txt", "Cùng nội dung"));
+
+    assertThat(second.created()).isFalse();
+    assertThat(second.contentKey()).isEqualTo(first.contentKey());
+    assertThat(storedFiles()).containsExactly(first.path());
+    // Refreshed, so the sweep keeps it until the new essay is saved
+    assertThat(Files.getLastModifiedTime(first.path()).toInstant())
+        .isAfter(Instant.now().minus(Duration.ofMinutes(1)));
+  }
+
+  @Test
+  void deletesOnlyOldUnreferencedFiles() throws IOException {
+    Path referenced = service.saveFileToSystem(upload("a.txt", "Được tham chiếu")).path();
+    Path unreferenced = service.saveFileToSystem(upload("b.txt", "Không được tham chiếu")).path();
+    Path recent = service.saveFileToSystem(upload("c.txt", "Vừa tải lên")).path();
+    Path legacy = Files.writeString(uploadDir.resolve("1700000000000_old.txt"), "Tên cũ");
+    for (Path path : new Path[] { referenced, unreferenced, legacy }) {
+      Files.setLastModifiedTime(path, FileTime.from(Instant.now().minus(Duration.ofDays(1))));
+    }
+
+    int deleted = service.deleteUnreferencedFiles(
+        contentKey -> contentKey.equals(referenced.getFileName().toString()), Duration.ofHours(1));
+
+    assertThat(deleted).isEqualTo(1);
+    assertThat(storedFiles()).containsExactlyInAnyOrder(referenced, recent);
+    assertThat(legacy).exists();
+  }
+
+  /**
+   * Files in the subdirectories of the upload directory, where uploads are
+   * stored by content.
+   */
+  private List<Path> storedFiles() throws IOException {
+    try (Stream<Path> files = Files.walk(uploadDir, 2)) {
+      return files.filter(path -> Files.isRegularFile(path) && !path.getParent().equals(uploadDir)).toList();
+    }
+  }
+
+  private static MockMultipartFile upload(String name, String content) {
+    return new MockMultipartFile("file", name, "text/plain", content.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,202 @@
+package com.trinhhoctuan.articlecheck.services.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.trinhhoctuan.articlecheck.config.GrammarCheckEngine;
+import com.trinhhoctuan.articlecheck.dtos.GrammarMatch;
+import com.trinhhoctuan.articlecheck.mappers.GrammarCheckMapper;
+import com.trinhhoctuan.articlecheck.models.Essay;
+import com.trinhhoctuan.articlecheck.models.GrammarCheck;
+import com.trinhhoctuan.articlecheck.repositories.EssayRepository;
+import com.trinhhoctuan.articlecheck.repositories.GrammarCheckRepository;
+import com.trinhhoctuan.articlecheck.services.IgnoreWordsService;
+import com.trinhhoctuan.articlecheck.utils.IgnoreWordsOverlay;
+import com.trinhhoctuan.articlecheck.utils.TextSpan;
+
+class GrammarCheckServiceImplTest {
+  private static final long ESSAY_ID = 1L;
+
+  private GrammarCheckRepository grammarCheckRepository;
+  private GrammarCheckEngine grammarCheckEngine;
+  private GrammarCheckServiceImpl service;
+  private List<TextSpan> checkedRanges;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    grammarCheckRepository = mock(GrammarCheckRepository.class);
+    grammarCheckEngine = mock(GrammarCheckEngine.class);
+    service = new GrammarCheckServiceImpl(grammarCheckRepository, new GrammarCheckMapper(), grammarCheckEngine,
+        mock(EssayRepository.class), mock(IgnoreWordsService.class), 1, 50, 200);
+
+    // The engine reports the first word of every range it checks
+    checkedRanges = new ArrayList<>();
+    when(grammarCheckEngine.check(anyString(), anyList(), any())).thenAnswer(invocation -> {
+      String text = invocation.getArgument(0);
+      List<TextSpan> ranges = invocation.getArgument(1);
+      checkedRanges.addAll(ranges);
+      return ranges.stream()
+          .map(range -> match(range.start(), text.indexOf(' ', range.start())))
+          .toList();
+    });
+  }
+
+  @Test
+  void keepsUnchangedParagraphsAndShiftsTheirChecks() throws IOException {
+    String previous = "Alpha one.\nBeta two.\nGamma three.";
+    String text = "Alpha one.\nBeta two, longer.\nGamma three.";
+    GrammarCheck alpha = stored(previous, "one");
+    GrammarCheck beta = stored(previous, "two");
+    GrammarCheck gamma = stored(previous, "three");
+
+    List<GrammarCheck> result = recheck(previous, text, alpha, beta, gamma);
+
+    assertThat(checkedRanges).containsExactly(paragraph(text, "Beta"));
+    assertThat(errorTexts(text, result)).containsExactly("one", "Beta", "three");
+    assertThat(result).contains(alpha, gamma).doesNotContain(beta);
+    assertThat(deleted()).containsExactly(beta);
+  }
+
+  @Test
+  void shiftsAllChecksWhenTheFirstParagraphIsEdited() throws IOException {
+    String previous = "Alpha one.\nBeta two.\nGamma three.";
+    String text = "Alpha, the first one.\nBeta two.\nGamma three.";
+    GrammarCheck alpha = stored(previous, "one");
+    GrammarCheck beta = stored(previous, "two");
+    GrammarCheck gamma = stored(previous, "three");
+
+    List<GrammarCheck> result = recheck(previous, text, alpha, beta, gamma);
+
+    assertThat(checkedRanges).containsExactly(paragraph(text, "Alpha"));
+    assertThat(errorTexts(text, result)).containsExactly("Alpha,", "two", "three");
+    assertThat(deleted()).containsExactly(alpha);
+  }
+
+  @Test
+  void keepsOffsetsWhenTheLastParagraphIsEdited() throws IOException {
+    String previous = "Alpha one.\nBeta two.\nGamma three.";
+    String text = "Alpha one.\nBeta two.\nDelta four.";
+    GrammarCheck alpha = stored(previous, "one");
+    GrammarCheck beta = stored(previous, "two");
+    GrammarCheck gamma = stored(previous, "three");
+    int alphaStart = alpha.getStartPosition();
+    int betaStart = beta.getStartPosition();
+
+    List<GrammarCheck> result = recheck(previous, text, alpha, beta, gamma);
+
+    assertThat(checkedRanges).containsExactly(paragraph(text, "Delta"));
+    assertThat(errorTexts(text, result)).containsExactly("one", "two", "Delta");
+    assertThat(alpha.getStartPosition()).isEqualTo(alphaStart);
+    assertThat(beta.getStartPosition()).isEqualTo(betaStart);
+    assertThat(deleted()).containsExactly(gamma);
+  }
+
+  @Test
+  void reusesDuplicateParagraphsOnceEach() throws IOException {
+    String previous = "Same text.\nSame text.\nOther.";
+    String text = "New start.\nSame text.\nSame text.\nOther.";
+    int second = previous.indexOf("text", previous.indexOf('\n'));
+    GrammarCheck first = stored(previous, previous.indexOf("text"), "text");
+    GrammarCheck duplicate = stored(previous, second, "text");
+
+    List<GrammarCheck> result = recheck(previous, text, first, duplicate);
+
+    assertThat(checkedRanges).containsExactly(paragraph(text, "New"));
+    int shift = "New start.\n".length();
+    assertThat(first.getStartPosition()).isEqualTo(previous.indexOf("text") + shift);
+    assertThat(duplicate.getStartPosition()).isEqualTo(second + shift);
+    assertThat(errorTexts(text, result)).containsExactly("New", "text", "text");
+    assertThat(deleted()).isEmpty();
+  }
+
+  @Test
+  void deletesChecksOfARemovedDuplicate() throws IOException {
+    String previous = "Same text.\nSame text.";
+    String text = "Same text.";
+    GrammarCheck first = stored(previous, previous.indexOf("text"), "text");
+    GrammarCheck duplicate = stored(previous, previous.lastIndexOf("text"), "text");
+
+    List<GrammarCheck> result = recheck(previous, text, first, duplicate);
+
+    assertThat(checkedRanges).isEmpty();
+    assertThat(result).containsExactly(first);
+    assertThat(deleted()).containsExactly(duplicate);
+  }
+
+  @Test
+  void deletesChecksOutsideAllParagraphs() throws IOException {
+    String previous = "Alpha one.\n\nBeta two.";
+    GrammarCheck blankLine = GrammarCheck.builder()
+        .startPosition(previous.indexOf('\n') + 1)
+        .endPosition(previous.indexOf('\n') + 2)
+        .errorText("\n")
+        .ruleId("WHITESPACE")
+        .message("Blank line")
+        .build();
+
+    List<GrammarCheck> result = recheck(previous, previous, blankLine);
+
+    assertThat(result).isEmpty();
+    assertThat(deleted()).containsExactly(blankLine);
+  }
+
+  private List<GrammarCheck> recheck(String previous, String text, GrammarCheck... storedChecks) {
+    Essay essay = Essay.builder().originalContent(previous).processedContent(text).build();
+    essay.setId(ESSAY_ID);
+    when(grammarCheckRepository.findByEssayId(ESSAY_ID)).thenReturn(List.of(storedChecks));
+
+    service.recheckGrammar(essay, previous, IgnoreWordsOverlay.EMPTY);
+
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<GrammarCheck>> saved = ArgumentCaptor.forClass(List.class);
+    verify(grammarCheckRepository).saveAll(saved.capture());
+    List<GrammarCheck> result = new ArrayList<>(saved.getValue());
+    result.sort(Comparator.comparing(GrammarCheck::getStartPosition));
+    return result;
+  }
+
+  private List<GrammarCheck> deleted() {
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<GrammarCheck>> deleted = ArgumentCaptor.forClass(List.class);
+    verify(grammarCheckRepository).deleteAll(deleted.capture());
+    return deleted.getValue();
+  }
+
+  private static List<String> errorTexts(String text, List<GrammarCheck> checks) {
+    return checks.stream()
+        .map(check -> text.substring(check.getStartPosition(), check.getEndPosition()))
+        .toList();
+  }
+
+  private static GrammarCheck stored(String text, String word) {
+    return stored(text, text.indexOf(word), word);
+  }
+
+  private static GrammarCheck stored(String text, int start, String word) {
+    return GrammarCheckServiceImpl.convertToGrammarCheck(match(start, start + word.length()), null, text);
+  }
+
+  private static GrammarMatch match(int from, int to) {
+    return new GrammarMatch(from, to, "TEST_RULE", "Test", null, GrammarCheck.ErrorSeverity.LOW);
+  }
+
+  private static TextSpan paragraph(String text, String start) {
+    int from = text.indexOf(start);
+    int end = text.indexOf('\n', from);
+    return new TextSpan(from, end < 0 ? text.length() : end);
+  }
+}
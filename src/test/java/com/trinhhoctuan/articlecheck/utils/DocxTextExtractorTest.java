@@ -0,0 +1,202 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DocxTextExtractorTest {
+  private static final String WORDPROCESSING_NS = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void extractsParagraphsAndTablesLikeXwpf() throws Exception {
+    Path file = directory.resolve("table.docx");
+    try (XWPFDocument document = new XWPFDocument(); OutputStream out = Files.newOutputStream(file)) {
+      document.createParagraph().createRun().setText("Mở đầu bài luận.");
+      XWPFTable table = document.createTable(2, 3);
+      for (int row = 0; row < 2; row++) {
+        for (int cell = 0; cell < 3; cell++) {
+          table.getRow(row).getCell(cell).setText("Ô " + row + cell);
+        }
+      }
+      table.getRow(1).getCell(2).removeParagraph(0);
+      document.createParagraph().createRun().setText("Kết luận.");
+      document.write(out);
+    }
+
+    assertMatchesXwpf(file);
+  }
+
+  @Test
+  void skipsTrackedDeletionsThatXwpfKeeps() throws Exception {
+    Path file = docx("""
+        <w:p>
+          <w:r><w:t xml:space="preserve">Giữ lại </w:t></w:r>
+          <w:del w:id="1" w:author="A" w:date="2024-01-01T00:00:00Z">
+            <w:r><w:delText>đã xóa </w:delText></w:r>
+          </w:del>
+          <w:ins w:id="2" w:author="A" w:date="2024-01-01T00:00:00Z">
+            <w:r><w:t xml:space="preserve">đã chèn </w:t></w:r>
+          </w:ins>
+          <w:r><w:t>cuối câu.</w:t></w:r>
+        </w:p>
+        """);
+
+    assertThat(DocxTextExtractor.extract(file)).isEqualTo("Giữ lại đã chèn cuối câu.\n");
+    assertThat(xwpfText(file)).isEqualTo("Giữ lại đã xóa đã chèn cuối câu.\n");
+  }
+
+  @Test
+  void skipsFieldCodesButKeepsFieldResultsLikeXwpf() throws Exception {
+    Path file = docx("""
+        <w:p>
+          <w:r><w:t xml:space="preserve">Trang </w:t></w:r>
+          <w:r><w:fldChar w:fldCharType="begin"/></w:r>
+          <w:r><w:instrText xml:space="preserve"> PAGE \\* MERGEFORMAT </w:instrText></w:r>
+          <w:r><w:fldChar w:fldCharType="separate"/></w:r>
+          <w:r><w:t>3</w:t></w:r>
+          <w:r><w:fldChar w:fldCharType="end"/></w:r>
+          <w:r><w:tab/><w:t>tiếp</w:t><w:br/><w:t>dòng mới</w:t></w:r>
+        </w:p>
+        """);
+
+    assertThat(DocxTextExtractor.extract(file)).isEqualTo("Trang 3\ttiếp\ndòng mới\n");
+    assertMatchesXwpf(file);
+  }
+
+  @Test
+  void extractsTextBoxesOnceFromTheChosenAlternative() throws Exception {
+    Path file = docx("""
+        <w:p>
+          <w:r><w:t xml:space="preserve">Trước </w:t></w:r>
+          <w:r>
+            <mc:AlternateContent>
+              <mc:Choice Requires="wps">
+                <w:drawing><wp:anchor><a:graphic><a:graphicData><wps:wsp><wps:txbx><w:txbxContent>
+                  <w:p><w:r><w:t>Hộp văn bản.</w:t></w:r></w:p>
+                </w:txbxContent></wps:txbx></wps:wsp></a:graphicData></a:graphic></wp:anchor></w:drawing>
+              </mc:Choice>
+              <mc:Fallback>
+                <w:pict><v:shape><v:textbox><w:txbxContent>
+                  <w:p><w:r><w:t>Hộp văn bản.</w:t></w:r></w:p>
+                </w:txbxContent></v:textbox></v:shape></w:pict>
+              </mc:Fallback>
+            </mc:AlternateContent>
+          </w:r>
+          <w:r><w:t>sau.</w:t></w:r>
+        </w:p>
+        """);
+
+    // The VML fallback repeats the text box; XWPF drops text boxes altogether
+    assertThat(DocxTextExtractor.extract(file)).isEqualTo("Trước Hộp văn bản.\nsau.\n");
+    assertThat(xwpfText(file)).isEqualTo("Trước sau.\n");
+  }
+
+  @Test
+  void ignoresTabStopsInParagraphProperties() throws Exception {
+    Path file = docx("""
+        <w:p>
+          <w:pPr><w:tabs><w:tab w:val="left" w:pos="720"/></w:tabs></w:pPr>
+          <w:r><w:t>Không có tab.</w:t></w:r>
+        </w:p>
+        """);
+
+    assertThat(DocxTextExtractor.extract(file)).isEqualTo("Không có tab.\n");
+    assertMatchesXwpf(file);
+  }
+
+  @Test
+  void rejectsDocumentsItCannotStream() throws IOException {
+    Path file = docx("http://purl.oclc.org/ooxml/wordprocessingml/main", "<w:p><w:r><w:t>Strict</w:t></w:r></w:p>");
+
+    assertThatThrownBy(() -> DocxTextExtractor.extract(file))
+        .isInstanceOf(DocxTextExtractor.UnsupportedDocumentException.class);
+  }
+
+  @Test
+  void rejectsFilesThatAreNotPackages() throws IOException {
+    Path file = Files.writeString(directory.resolve("plain.docx"), "not a zip");
+
+    assertThatThrownBy(() -> DocxTextExtractor.extract(file))
+        .isInstanceOf(IOException.class)
+        .isNotInstanceOf(DocxTextExtractor.UnsupportedDocumentException.class);
+  }
+
+  private static void assertMatchesXwpf(Path file) throws Exception {
+    assertThat(DocxTextExtractor.extract(file)).isEqualTo(xwpfText(file));
+  }
+
+  private static String xwpfText(Path file) throws Exception {
+    OPCPackage opcPackage = OPCPackage.open(file.toFile(), PackageAccess.READ);
+    try (XWPFWordExtractor extractor = new XWPFWordExtractor(new XWPFDocument(opcPackage))) {
+      return extractor.getText();
+    } finally {
+      opcPackage.revert();
+    }
+  }
+
+  private Path docx(String body) throws IOException {
+    return docx(WORDPROCESSING_NS, body);
+  }
+
+  /**
+   * Write a minimal DOCX package whose main document has the given body.
+   */
+  private Path docx(String namespace, String body) throws IOException {
+    Path file = Files.createTempFile(directory, "fixture", ".docx");
+    try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(file))) {
+      entry(zip, "[Content_Types].xml", """
+          <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+          <Types xmlns="http://schemas.openxmlformats.org/package/2006/content-types">
+            <Default Extension="rels" ContentType="application/vnd.openxmlformats-package.relationships+xml"/>
+            <Default Extension="xml" ContentType="application/xml"/>
+            <Override PartName="/word/document.xml"
+                ContentType="application/vnd.openxmlformats-officedocument.wordprocessingml.document.main+xml"/>
+          </Types>
+          """);
+      entry(zip, "_rels/.rels", """
+          <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+          <Relationships xmlns="http://schemas.openxmlformats.org/package/2006/relationships">
+            <Relationship Id="rId1" Target="word/document.xml"
+                Type="http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument"/>
+          </Relationships>
+          """);
+      entry(zip, "word/document.xml", """
+          <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+          <w:document xmlns:w="%s"
+              xmlns:mc="http://schemas.openxmlformats.org/markup-compatibility/2006"
+              xmlns:wps="http://schemas.microsoft.com/office/word/2010/wordprocessingShape"
+              xmlns:wp="http://schemas.openxmlformats.org/drawingml/2006/wordprocessingDrawing"
+              xmlns:a="http://schemas.openxmlformats.org/drawingml/2006/main"
+              xmlns:v="urn:schemas-microsoft-com:vml"
+              mc:Ignorable="wps">
+            <w:body>%s</w:body>
+          </w:document>
+          """.formatted(namespace, body));
+    }
+    return file;
+  }
+
+  private static void entry(ZipOutputStream zip, String name, String content) throws IOException {
+    zip.putNextEntry(new ZipEntry(name));
+    zip.write(content.strip().getBytes(StandardCharsets.UTF_8));
+    zip.closeEntry();
+  }
+}
@@ -0,0 +1,77 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class FingerprintIndexTest {
+
+  @Test
+  void returnsNoPostingsForUnknownFingerprints() {
+    FingerprintIndex index = new FingerprintIndex();
+    index.add(1, new long[] { 10 }, new int[] { 0 });
+
+    assertThat(index.count(11)).isZero();
+    assertThat(postings(index, 11)).isEmpty();
+  }
+
+  @Test
+  void visitsOccurrencesNewestFirst() {
+    FingerprintIndex index = new FingerprintIndex();
+    index.add(1, new long[] { 42, 7 }, new int[] { 3, 9 });
+    index.add(2, new long[] { 42 }, new int[] { 5 });
+    index.add(3, new long[] { 42, 42 }, new int[] { 0, 20 });
+
+    assertThat(index.count(42)).isEqualTo(4);
+    assertThat(index.count(7)).isEqualTo(1);
+    assertThat(index.size()).isEqualTo(5);
+    assertThat(postings(index, 42)).containsExactly(List.of(3, 20), List.of(3, 0), List.of(2, 5), List.of(1, 3));
+  }
+
+  @Test
+  void storesZeroAndCollidingFingerprints() {
+    FingerprintIndex index = new FingerprintIndex();
+    // Same low bits, so they probe the same initial slot
+    long colliding = 1L << 40;
+    index.add(1, new long[] { 0, colliding, 0 }, new int[] { 1, 2, 3 });
+
+    assertThat(postings(index, 0)).containsExactly(List.of(1, 3), List.of(1, 1));
+    assertThat(postings(index, colliding)).containsExactly(List.of(1, 2));
+  }
+
+  @Test
+  void keepsAllPostingsAcrossRehashes() {
+    FingerprintIndex index = new FingerprintIndex();
+    Map<Long, List<List<Integer>>> expected = new HashMap<>();
+    Random random = new Random(3);
+    for (int document = 0; document < 50; document++) {
+      long[] hashes = new long[1000];
+      int[] offsets = new int[hashes.length];
+      for (int i = 0; i < hashes.length; i++) {
+        // Some fingerprints repeat across documents
+        hashes[i] = random.nextInt(4) == 0 ? random.nextInt(100) : random.nextLong();
+        offsets[i] = i * 7;
+        expected.computeIfAbsent(hashes[i], hash -> new ArrayList<>()).add(0, List.of(document, offsets[i]));
+      }
+      index.add(document, hashes, offsets);
+    }
+
+    assertThat(index.size()).isEqualTo(50_000);
+    expected.forEach((hash, occurrences) -> {
+      assertThat(index.count(hash)).isEqualTo(occurrences.size());
+      assertThat(postings(index, hash)).isEqualTo(occurrences);
+    });
+  }
+
+  private static List<List<Integer>> postings(FingerprintIndex index, long hash) {
+    List<List<Integer>> postings = new ArrayList<>();
+    index.forEach(hash, (document, offset) -> postings.add(List.of(document, offset)));
+    return postings;
+  }
+}
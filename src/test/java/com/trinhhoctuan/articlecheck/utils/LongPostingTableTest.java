@@ -0,0 +1,73 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class LongPostingTableTest {
+
+  @Test
+  void chainsPostingsPerKeyNewestFirst() {
+    LongPostingTable table = new LongPostingTable(2);
+    add(table, 5, 1, 10);
+    add(table, 6, 2, 20);
+    add(table, 5, 3, 30);
+
+    assertThat(table.count(5)).isEqualTo(2);
+    assertThat(table.count(7)).isZero();
+    assertThat(table.head(7)).isEqualTo(LongPostingTable.NO_POSTING);
+    assertThat(values(table, 5)).containsExactly(List.of(3, 30), List.of(1, 10));
+    assertThat(values(table, 6)).containsExactly(List.of(2, 20));
+    assertThat(table.distinct()).isEqualTo(2);
+    assertThat(table.size()).isEqualTo(3);
+  }
+
+  @Test
+  void keepsValuesAcrossPostingGrowthAndRehashes() {
+    LongPostingTable table = new LongPostingTable(2);
+    Map<Long, List<List<Integer>>> expected = new HashMap<>();
+    Random random = new Random(5);
+    for (int i = 0; i < 20_000; i++) {
+      // Small keys repeat, and keys differing only in the high bits collide
+      long key = random.nextBoolean() ? random.nextInt(50) : (long) random.nextInt(5000) << 40;
+      if (i % 1000 == 0) {
+        table.ensureCapacity(1000);
+      }
+      add(table, key, i, -i);
+      expected.computeIfAbsent(key, k -> new ArrayList<>()).add(0, List.of(i, -i));
+    }
+
+    assertThat(table.size()).isEqualTo(20_000);
+    assertThat(table.distinct()).isEqualTo(expected.size());
+    expected.forEach((key, postings) -> {
+      assertThat(table.count(key)).isEqualTo(postings.size());
+      assertThat(values(table, key)).isEqualTo(postings);
+    });
+  }
+
+  @Test
+  void rejectsTablesWithoutColumns() {
+    assertThatThrownBy(() -> new LongPostingTable(0)).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static void add(LongPostingTable table, long key, int first, int second) {
+    int posting = table.add(key);
+    table.set(posting, 0, first);
+    table.set(posting, 1, second);
+  }
+
+  private static List<List<Integer>> values(LongPostingTable table, long key) {
+    List<List<Integer>> values = new ArrayList<>();
+    for (int posting = table.head(key); posting != LongPostingTable.NO_POSTING; posting = table.next(posting)) {
+      values.add(List.of(table.get(posting, 0), table.get(posting, 1)));
+    }
+    return values;
+  }
+}
@@ -0,0 +1,61 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+class MinHashLshIndexTest {
+  private static final String SENTENCE = "Giáo dục là nền tảng của sự phát triển bền vững của mỗi quốc gia.";
+
+  private final MinHashLshIndex index = new MinHashLshIndex(32, 4, 5);
+
+  @Test
+  void ignoresCaseAndWhitespace() {
+    String reformatted = "  GIÁO DỤC là nền tảng   của sự phát triển\nbền vững của mỗi quốc gia.";
+
+    assertThat(index.signature(reformatted)).isEqualTo(index.signature(SENTENCE));
+  }
+
+  @Test
+  void findsNearDuplicatesButNotUnrelatedSentences() {
+    index.add(1, keys(SENTENCE));
+    index.add(2, keys("Biến đổi khí hậu ảnh hưởng nghiêm trọng đến sản xuất nông nghiệp ở đồng bằng."));
+
+    assertThat(index.candidates(keys("Giáo dục là nền tảng của sự phát triển bền vững của mọi quốc gia.")))
+        .containsExactly(1);
+    assertThat(index.candidates(keys("Thể thao giúp rèn luyện sức khỏe và tinh thần đồng đội."))).isEmpty();
+    assertThat(index.size()).isEqualTo(2);
+  }
+
+  @Test
+  void returnsEachCandidateOnceInAscendingOrder() {
+    index.add(9, keys(SENTENCE));
+    index.add(3, keys(SENTENCE));
+    index.add(9, keys(SENTENCE));
+
+    assertThat(index.candidates(keys(SENTENCE))).containsExactly(3, 9);
+  }
+
+  @Test
+  void keepsAllEntriesAcrossGrowth() {
+    for (int id = 0; id < 2000; id++) {
+      index.add(id, keys("Câu số " + id + " trong kho tài liệu tham khảo."));
+    }
+
+    assertThat(index.size()).isEqualTo(2000);
+    for (int id = 0; id < 2000; id += 97) {
+      assertThat(index.candidates(keys("Câu số " + id + " trong kho tài liệu tham khảo."))).contains(id);
+    }
+  }
+
+  @Test
+  void rejectsNonPositiveParameters() {
+    assertThatThrownBy(() -> new MinHashLshIndex(0, 4, 5)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new MinHashLshIndex(32, 4, 0)).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private long[] keys(String text) {
+    return index.bandKeys(index.signature(text));
+  }
+}
@@ -0,0 +1,154 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ReferenceCorpusFileTest {
+  private static final int BANDS = 2;
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void readsAppendedDocumentsAfterReopening() throws IOException {
+    Path path = directory.resolve("corpus.bin");
+    try (ReferenceCorpusFile file = open(path)) {
+      appendFirst(file);
+      appendSecond(file);
+    }
+
+    try (ReferenceCorpusFile file = open(path)) {
+      List<ReferenceCorpusFile.StoredDocument> documents = documents(file);
+
+      assertThat(documents).hasSize(2);
+      ReferenceCorpusFile.StoredDocument first = documents.get(0);
+      assertThat(first.essayId()).isEqualTo(7);
+      assertThat(first.sourceName()).isEqualTo("Bài luận 7");
+      assertThat(first.sourceUrl()).isNull();
+      assertThat(first.bandKeys()).containsExactly(new long[] { 1, 2 }, new long[] { 3, 4 });
+      assertThat(first.textPositions()).hasSize(2);
+      assertThat(file.readText(first.textPositions()[0])).isEqualTo("Câu thứ nhất.");
+      assertThat(file.readText(first.textPositions()[1])).isEqualTo("Câu thứ hai.");
+      assertThat(first.fingerprints()).containsExactly(11, 12, 13);
+      assertThat(first.fingerprintOffsets()).containsExactly(0, 4, 9);
+      assertThat(documents.get(1).sourceUrl()).isEqualTo("https://example.com/a");
+      assertThat(file.readText(documents.get(1).textPositions()[0])).isEqualTo("Một câu khác.");
+    }
+  }
+
+  @Test
+  void dropsARecordTruncatedMidRecord() throws IOException {
+    Path path = directory.resolve("corpus.bin");
+    long firstEnd;
+    try (ReferenceCorpusFile file = open(path)) {
+      appendFirst(file);
+      firstEnd = file.getSize();
+      appendSecond(file);
+    }
+    truncate(path, Files.size(path) - 5);
+
+    try (ReferenceCorpusFile file = open(path)) {
+      assertThat(documents(file)).extracting(ReferenceCorpusFile.StoredDocument::essayId).containsExactly(7L);
+      assertThat(file.getSize()).isEqualTo(firstEnd);
+    }
+    assertThat(Files.size(path)).isEqualTo(firstEnd);
+  }
+
+  @Test
+  void dropsARecordTruncatedInItsLength() throws IOException {
+    Path path = directory.resolve("corpus.bin");
+    long firstEnd;
+    try (ReferenceCorpusFile file = open(path)) {
+      appendFirst(file);
+      firstEnd = file.getSize();
+      appendSecond(file);
+    }
+    truncate(path, firstEnd + 2);
+
+    try (ReferenceCorpusFile file = open(path)) {
+      assertThat(documents(file)).hasSize(1);
+      assertThat(file.getSize()).isEqualTo(firstEnd);
+    }
+  }
+
+  @Test
+  void appendsAfterTheRecoveredEnd() throws IOException {
+    Path path = directory.resolve("corpus.bin");
+    try (ReferenceCorpusFile file = open(path)) {
+      appendFirst(file);
+      appendSecond(file);
+    }
+    truncate(path, Files.size(path) - 1);
+
+    try (ReferenceCorpusFile file = open(path)) {
+      appendSecond(file);
+    }
+
+    try (ReferenceCorpusFile file = open(path)) {
+      List<ReferenceCorpusFile.StoredDocument> documents = documents(file);
+      assertThat(documents).extracting(ReferenceCorpusFile.StoredDocument::essayId).containsExactly(7L, 0L);
+      assertThat(file.readText(documents.get(1).textPositions()[0])).isEqualTo("Một câu khác.");
+    }
+  }
+
+  @Test
+  void reportsHashesOfOtherParametersAsMissing() throws IOException {
+    Path path = directory.resolve("corpus.bin");
+    try (ReferenceCorpusFile file = open(path)) {
+      appendFirst(file);
+    }
+
+    try (ReferenceCorpusFile file = ReferenceCorpusFile.open(path, BANDS, 8, 5, 30, 20)) {
+      ReferenceCorpusFile.StoredDocument document = documents(file).get(0);
+
+      assertThat(document.bandKeys()).isNull();
+      assertThat(document.fingerprints()).isNull();
+      assertThat(file.readText(document.textPositions()[1])).isEqualTo("Câu thứ hai.");
+    }
+  }
+
+  @Test
+  void rejectsOtherFiles() throws IOException {
+    Path path = directory.resolve("other.bin");
+    Files.writeString(path, "not a reference corpus file");
+
+    assertThatThrownBy(() -> open(path)).isInstanceOf(IOException.class);
+  }
+
+  private static ReferenceCorpusFile open(Path path) throws IOException {
+    return ReferenceCorpusFile.open(path, BANDS, 4, 5, 25, 20);
+  }
+
+  private static void appendFirst(ReferenceCorpusFile file) throws IOException {
+    file.append(7, "Bài luận 7", null, List.of("Câu thứ nhất.", "Câu thứ hai."),
+        List.of(new long[] { 1, 2 }, new long[] { 3, 4 }), new long[] { 11, 12, 13 }, new int[] { 0, 4, 9 });
+  }
+
+  private static void appendSecond(ReferenceCorpusFile file) throws IOException {
+    file.append(0, "Nguồn A", "https://example.com/a", List.of("Một câu khác."), List.of(new long[] { 5, 6 }),
+        new long[] { 21 }, new int[] { 0 });
+  }
+
+  private static List<ReferenceCorpusFile.StoredDocument> documents(ReferenceCorpusFile file) {
+    List<ReferenceCorpusFile.StoredDocument> documents = new ArrayList<>();
+    file.forEachDocument(documents::add);
+    return documents;
+  }
+
+  private static void truncate(Path path, long size) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      channel.truncate(size);
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.jupiter.api.Test;
+
+import info.debatty.java.stringsimilarity.Cosine;
+import info.debatty.java.stringsimilarity.Jaccard;
+
+class ShingleProfileTest {
+  private static final String SENTENCE = "Giáo dục là nền tảng của sự phát triển bền vững.";
+
+  @Test
+  void scoresIdenticalTextsAsOne() {
+    ShingleProfile.Similarity similarity = ShingleProfile.of(SENTENCE).similarity(ShingleProfile.of(SENTENCE));
+
+    assertThat(similarity.cosine()).isCloseTo(1, within(1e-9));
+    assertThat(similarity.jaccard()).isEqualTo(1);
+    assertThat(similarity.average()).isCloseTo(1, within(1e-9));
+  }
+
+  @Test
+  void scoresTextsWithoutCommonShinglesAsZero() {
+    ShingleProfile.Similarity similarity = ShingleProfile.of("aaaa bbbb").similarity(ShingleProfile.of("xyz"));
+
+    assertThat(similarity).isEqualTo(new ShingleProfile.Similarity(0, 0));
+  }
+
+  @Test
+  void matchesKShinglingCosineAndJaccard() {
+    String[][] pairs = {
+        { SENTENCE, "Giáo dục là nền tảng cho sự phát triển bền vững của đất nước." },
+        { "ababab abab", "abab  ba\tba" },
+        { "Một câu ngắn.", "Một đoạn văn hoàn toàn khác." },
+    };
+    Cosine cosine = new Cosine(ShingleProfile.SHINGLE_SIZE);
+    Jaccard jaccard = new Jaccard(ShingleProfile.SHINGLE_SIZE);
+
+    for (String[] pair : pairs) {
+      ShingleProfile.Similarity similarity = ShingleProfile.of(pair[0]).similarity(ShingleProfile.of(pair[1]));
+
+      assertThat(similarity.cosine()).isCloseTo(cosine.similarity(pair[0], pair[1]), within(1e-9));
+      assertThat(similarity.jaccard()).isCloseTo(jaccard.similarity(pair[0], pair[1]), within(1e-9));
+    }
+  }
+
+  @Test
+  void collapsesWhitespaceAndCountsDistinctShingles() {
+    assertThat(ShingleProfile.of("ab \n\t cd").size()).isEqualTo(ShingleProfile.of("ab cd").size()).isEqualTo(3);
+    assertThat(ShingleProfile.of("aaaaa").size()).isEqualTo(1);
+  }
+
+  @Test
+  void scoresTextsShorterThanAShingleAsZero() {
+    assertThat(ShingleProfile.of("ab").size()).isZero();
+    assertThat(ShingleProfile.of("ab").similarity(ShingleProfile.of("ab")).average()).isZero();
+    assertThat(ShingleProfile.of(SENTENCE).similarity(ShingleProfile.of("")).average()).isZero();
+  }
+}
@@ -0,0 +1,69 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.text.Normalizer;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class SimHashTest {
+  private static final String ESSAY = "Giáo dục là nền tảng của sự phát triển bền vững. Một nền giáo dục tốt giúp "
+      + "con người hiểu biết hơn về thế giới xung quanh, biết cách suy nghĩ độc lập và biết chịu trách nhiệm với "
+      + "cộng đồng. Vì vậy, đầu tư cho giáo dục là đầu tư cho tương lai của cả dân tộc.";
+
+  @Test
+  void ignoresCaseAndPunctuation() {
+    String reformatted = ESSAY.toUpperCase().replace(".", " ;").replace(",", "");
+
+    assertThat(SimHash.of(reformatted)).isEqualTo(SimHash.of(ESSAY));
+  }
+
+  @Test
+  void ignoresUnicodeNormalization() {
+    String decomposed = Normalizer.normalize(ESSAY, Normalizer.Form.NFD);
+
+    assertThat(SimHash.of(decomposed)).isEqualTo(SimHash.of(ESSAY));
+  }
+
+  @Test
+  void keepsNearDuplicatesCloserThanDifferentTexts() {
+    String edited = ESSAY.replace("tốt", "tiến bộ").replace("cả dân tộc", "đất nước");
+    String other = "Biến đổi khí hậu đang ảnh hưởng nghiêm trọng đến sản xuất nông nghiệp ở đồng bằng sông Cửu "
+        + "Long, khiến nhiều vùng đất bị nhiễm mặn và người nông dân phải chuyển đổi cây trồng để thích nghi.";
+
+    int editedDistance = SimHash.distance(SimHash.of(edited), SimHash.of(ESSAY));
+    int otherDistance = SimHash.distance(SimHash.of(other), SimHash.of(ESSAY));
+
+    assertThat(editedDistance).isPositive().isLessThan(16);
+    assertThat(otherDistance).isGreaterThan(16);
+  }
+
+  @Test
+  void keepsAnEssayWithOneEditedWordWithinTheDuplicateDistance() {
+    Random random = new Random(4);
+    String[] words = new String[1000];
+    for (int i = 0; i < words.length; i++) {
+      words[i] = "từ" + random.nextInt(3000);
+    }
+    String essay = String.join(" ", words);
+    words[500] = "sửa";
+
+    // The default app.essay.duplicate.max-distance
+    assertThat(SimHash.distance(SimHash.of(String.join(" ", words)), SimHash.of(essay))).isLessThanOrEqualTo(3);
+  }
+
+  @Test
+  void fingerprintsTextsShorterThanAShingle() {
+    assertThat(SimHash.of("Xin chào")).isNotZero();
+    assertThat(SimHash.of("Xin chào")).isNotEqualTo(SimHash.of("Tạm biệt"));
+    assertThat(SimHash.of("  ...  ")).isZero();
+  }
+
+  @Test
+  void countsDifferingBits() {
+    assertThat(SimHash.distance(0L, 0L)).isZero();
+    assertThat(SimHash.distance(0b1011L, 0b0110L)).isEqualTo(3);
+    assertThat(SimHash.distance(0L, -1L)).isEqualTo(64);
+  }
+}
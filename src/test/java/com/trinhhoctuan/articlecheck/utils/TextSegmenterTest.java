@@ -0,0 +1,84 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TextSegmenterTest {
+
+  @Test
+  void splitsParagraphsOnLinesAndSkipsBlankOnes() {
+    String text = "First line.\r\n\r\n  \nSecond line.\nThird";
+
+    List<TextSpan> paragraphs = TextSegmenter.paragraphs(text);
+
+    assertThat(texts(text, paragraphs)).containsExactly("First line.", "Second line.", "Third");
+    assertThat(paragraphs.get(0)).isEqualTo(new TextSpan(0, "First line.".length()));
+  }
+
+  @Test
+  void returnsNoParagraphsForNullOrBlankText() {
+    assertThat(TextSegmenter.paragraphs(null)).isEmpty();
+    assertThat(TextSegmenter.paragraphs(" \n\n\t")).isEmpty();
+  }
+
+  @Test
+  void splitsSentencesAfterTerminalPunctuation() {
+    assertThat(sentences("Một câu. Hai câu?! Ba câu…  Bốn"))
+        .containsExactly("Một câu.", "Hai câu?!", "Ba câu…", "Bốn");
+  }
+
+  @Test
+  void splitsSentencesAtLineBreaks() {
+    assertThat(sentences("Dòng một\nDòng hai.")).containsExactly("Dòng một", "Dòng hai.");
+  }
+
+  @Test
+  void keepsSentenceOffsetsInTheOriginalText() {
+    String text = "Mở đầu.\nCâu một.  Câu hai.";
+    TextSpan range = new TextSpan(text.indexOf('\n') + 1, text.length());
+
+    List<TextSpan> sentences = TextSegmenter.sentences(text, range);
+
+    assertThat(texts(text, sentences)).containsExactly("Câu một.", "Câu hai.");
+    assertThat(sentences.get(0).start()).isEqualTo(range.start());
+  }
+
+  @Test
+  void doesNotSplitAfterTitles() {
+    assertThat(sentences("TS. Lê Văn Bình đến TP. Hồ Chí Minh. PGS. TS. Trần An phát biểu."))
+        .containsExactly("TS. Lê Văn Bình đến TP. Hồ Chí Minh.", "PGS. TS. Trần An phát biểu.");
+  }
+
+  @Test
+  void doesNotSplitAfterNameInitials() {
+    assertThat(sentences("Nguyễn V. A. viết bài này.")).containsExactly("Nguyễn V. A. viết bài này.");
+    assertThat(sentences("J. K. Rowling viết truyện.")).containsExactly("J. K. Rowling viết truyện.");
+    assertThat(sentences("TS. Lê Văn B. Trần Hùng đến.")).containsExactly("TS. Lê Văn B. Trần Hùng đến.");
+  }
+
+  @Test
+  void splitsAfterASingleCapitalLetterEndingASentence() {
+    assertThat(sentences("Chọn điểm A. Sau đó nối lại.")).containsExactly("Chọn điểm A.", "Sau đó nối lại.");
+    assertThat(sentences("Ta chọn phương án B. Đây là lý do."))
+        .containsExactly("Ta chọn phương án B.", "Đây là lý do.");
+  }
+
+  @Test
+  void splitsAfterTrailingAbbreviationsOnlyBeforeACapitalizedWord() {
+    assertThat(sentences("Có táo, cam v.v. và nhiều loại khác."))
+        .containsExactly("Có táo, cam v.v. và nhiều loại khác.");
+    assertThat(sentences("Có táo, cam v.v. Ngoài ra còn chuối."))
+        .containsExactly("Có táo, cam v.v.", "Ngoài ra còn chuối.");
+  }
+
+  private static List<String> sentences(String text) {
+    return texts(text, TextSegmenter.sentences(text, new TextSpan(0, text.length())));
+  }
+
+  private static List<String> texts(String text, List<TextSpan> spans) {
+    return spans.stream().map(span -> span.of(text)).toList();
+  }
+}
@@ -0,0 +1,97 @@
+package com.trinhhoctuan.articlecheck.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+class WinnowingTest {
+  private static final int KGRAM_LENGTH = 5;
+  private static final int WINDOW_SIZE = 4;
+
+  private final Winnowing winnowing = new Winnowing(KGRAM_LENGTH, WINDOW_SIZE);
+
+  @Test
+  void rejectsNonPositiveParameters() {
+    assertThatThrownBy(() -> new Winnowing(0, 4)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new Winnowing(5, 0)).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void returnsNoFingerprintsForTextShorterThanAKgram() {
+    assertThat(winnowing.fingerprint("abcd").size()).isZero();
+    assertThat(winnowing.fingerprint(" a-b, c! ").size()).isZero();
+    assertThat(winnowing.fingerprint("").size()).isZero();
+  }
+
+  @Test
+  void ignoresCaseDiacriticsAndPunctuation() {
+    Winnowing.Fingerprints plain = winnowing.fingerprint("tieng viet co dau rat dep");
+    Winnowing.Fingerprints accented = winnowing.fingerprint("Tiếng Việt, có dấu: RẤT đẹp!");
+
+    assertThat(accented.hashes()).containsExactly(plain.hashes());
+    assertThat(winnowing.fingerprint("Đường đi").hashes())
+        .containsExactly(winnowing.fingerprint("duong di").hashes());
+  }
+
+  @Test
+  void mapsFingerprintsToKgramsOfTheOriginalText() {
+    String text = "Một, hai; ba bốn năm sáu bảy tám chín mười.";
+
+    Winnowing.Fingerprints fingerprints = winnowing.fingerprint(text);
+
+    assertThat(fingerprints.size()).isPositive();
+    for (int i = 0; i < fingerprints.size(); i++) {
+      String kgram = text.substring(fingerprints.starts()[i], fingerprints.ends()[i]);
+      assertThat(Character.isLetterOrDigit(kgram.charAt(0))).isTrue();
+      assertThat(Character.isLetterOrDigit(kgram.charAt(kgram.length() - 1))).isTrue();
+      assertThat(kgram.codePoints().filter(Character::isLetterOrDigit).count()).isEqualTo(KGRAM_LENGTH);
+    }
+    assertThat(fingerprints.starts()).isSorted();
+  }
+
+  @Test
+  void selectsAFingerprintInEveryWindow() {
+    String text = randomText(new Random(1), 2000);
+
+    Winnowing.Fingerprints fingerprints = winnowing.fingerprint(text);
+
+    // Consecutive selected k-grams are at most a window apart
+    int kgramCount = text.length() - KGRAM_LENGTH + 1;
+    assertThat(fingerprints.starts()[0]).isLessThan(WINDOW_SIZE);
+    for (int i = 1; i < fingerprints.size(); i++) {
+      assertThat(fingerprints.starts()[i] - fingerprints.starts()[i - 1]).isBetween(1, WINDOW_SIZE);
+    }
+    assertThat(kgramCount - 1 - fingerprints.starts()[fingerprints.size() - 1]).isLessThan(WINDOW_SIZE);
+  }
+
+  @Test
+  void findsPassagesOfAtLeastTheGuaranteedLengthInOtherTexts() {
+    Random random = new Random(2);
+    int guaranteed = KGRAM_LENGTH + WINDOW_SIZE - 1;
+    for (int trial = 0; trial < 100; trial++) {
+      String passage = randomText(random, guaranteed);
+      String first = randomText(random, 300) + passage + randomText(random, 300);
+      String second = randomText(random, 200) + passage + randomText(random, 400);
+
+      assertThat(hashes(first)).containsAnyElementsOf(hashes(second));
+    }
+  }
+
+  private Set<Long> hashes(String text) {
+    return Arrays.stream(winnowing.fingerprint(text).hashes()).boxed().collect(Collectors.toSet());
+  }
+
+  private static String randomText(Random random, int length) {
+    StringBuilder text = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      text.append((char) ('a' + random.nextInt(26)));
+    }
+    return text.toString();
+  }
+}